@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.container;
+
+import com.liferay.netbeansproject.util.FileUtil;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Tom Wang
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class ModuleBenchmark {
+
+	@Benchmark
+	public Module createModule() throws IOException {
+		return Module.createModule(
+			null, _modulePath, null, null, _portalModuleDependencyProperties);
+	}
+
+	@Benchmark
+	public Module createModuleWithPreviousModule() throws IOException {
+		return Module.createModule(
+			null, _modulePath, null, null, _portalModuleDependencyProperties,
+			_module);
+	}
+
+	@Benchmark
+	public Map<Path, Module> moduleIndexRoundTrip() throws IOException {
+		Path moduleIndexPath = _projectPath.resolve("module.index");
+
+		ModuleIndex.save(moduleIndexPath, _modules);
+
+		return ModuleIndex.load(moduleIndexPath, _projectPath);
+	}
+
+	@Benchmark
+	public Module moduleInfoRoundTrip() throws IOException {
+		_module.exportModuleInfo();
+
+		return Module.load(_projectPath.resolve(_module.getModuleName()));
+	}
+
+	@Setup
+	public void setUp() throws IOException {
+		_rootPath = Files.createTempDirectory("module-benchmark");
+
+		_modulePath = _rootPath.resolve(
+			Paths.get("portal", "modules", "apps", "foo", "foo-service"));
+
+		Files.createDirectories(
+			_modulePath.resolve(Paths.get("src", "main", "java")));
+		Files.createDirectories(
+			_modulePath.resolve(Paths.get("src", "main", "resources")));
+		Files.createDirectories(
+			_modulePath.resolve(Paths.get("src", "test", "java")));
+
+		Files.write(
+			_modulePath.resolve("bnd.bnd"),
+			"Bundle-SymbolicName: com.liferay.foo.service\n".getBytes());
+
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("dependencies {\n");
+
+		for (int i = 0; i < 40; i++) {
+			sb.append("\tprovided group: \"com.liferay\", name: ");
+			sb.append("\"com.liferay.foo");
+			sb.append(i);
+			sb.append("\", version: \"1.0.0\"\n");
+		}
+
+		sb.append("}");
+
+		Files.write(
+			_modulePath.resolve("build.gradle"), sb.toString().getBytes());
+
+		Path libPath = _modulePath.resolve("lib");
+
+		Files.createDirectories(libPath);
+
+		for (int i = 0; i < 5; i++) {
+			Files.write(libPath.resolve("lib" + i + ".jar"), new byte[4096]);
+		}
+
+		_portalModuleDependencyProperties = new Properties();
+
+		_portalModuleDependencyProperties.setProperty(
+			"portal.module.dependencies", "portal-impl,portal-kernel");
+
+		_projectPath = _rootPath.resolve("project");
+
+		Set<Dependency> jarDependencies = new HashSet<>();
+
+		for (int i = 0; i < 100; i++) {
+			jarDependencies.add(
+				new Dependency(
+					_rootPath.resolve(
+						Paths.get(
+							"gradle", "org.foo", "foo" + i, "1.0",
+							"foo" + i + "-1.0.jar")),
+					null, (i % 10) == 0));
+		}
+
+		Set<Dependency> moduleDependencies = new HashSet<>();
+
+		for (int i = 0; i < 20; i++) {
+			moduleDependencies.add(
+				new Dependency(
+					Paths.get("modules", "apps", "foo", "foo" + i), null,
+					false));
+		}
+
+		_module = Module.createModule(
+			_projectPath, _modulePath, moduleDependencies, jarDependencies,
+			_portalModuleDependencyProperties);
+
+		_modules = new ArrayList<>();
+
+		for (int i = 0; i < 1000; i++) {
+			_modules.add(
+				Module.createModule(
+					_projectPath, _modulePath.resolveSibling("foo" + i),
+					moduleDependencies, jarDependencies,
+					_portalModuleDependencyProperties));
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtil.delete(_rootPath);
+	}
+
+	private Module _module;
+	private Path _modulePath;
+	private List<Module> _modules;
+	private Properties _portalModuleDependencyProperties;
+	private Path _projectPath;
+	private Path _rootPath;
+
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.template;
+
+import com.liferay.netbeansproject.container.Dependency;
+import com.liferay.netbeansproject.container.Module;
+import com.liferay.netbeansproject.util.FileUtil;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Tom Wang
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class FreeMarkerUtilBenchmark {
+
+	@Benchmark
+	public String processProjectProperties() throws Exception {
+		StringWriter stringWriter = new StringWriter();
+
+		FreeMarkerUtil.process(
+			"resources/project_properties.ftl", _data, stringWriter);
+
+		return stringWriter.toString();
+	}
+
+	@Benchmark
+	public void processUnchangedProjectProperties() throws Exception {
+		FreeMarkerUtil.process(
+			"resources/project_properties.ftl", _data,
+			_rootPath.resolve("project.properties"));
+	}
+
+	@Setup
+	public void setUp() throws Exception {
+		_rootPath = Files.createTempDirectory("freemarker-util-benchmark");
+
+		Path portalPath = _rootPath.resolve("portal");
+
+		Set<Dependency> jarDependencies = new HashSet<>();
+
+		for (int i = 0; i < 150; i++) {
+			jarDependencies.add(
+				new Dependency(
+					portalPath.resolve(
+						Paths.get(
+							".gradle", "com.example", "artifact" + i,
+							"artifact" + i + "-1.0.0.jar")),
+					null, (i % 10) == 0));
+		}
+
+		Set<Dependency> moduleDependencies = new HashSet<>();
+
+		for (int i = 0; i < 20; i++) {
+			moduleDependencies.add(
+				new Dependency(
+					Paths.get("modules", "module" + i), null, false));
+		}
+
+		Properties portalModuleDependencyProperties = new Properties();
+
+		portalModuleDependencyProperties.setProperty(
+			"portal.module.dependencies", "portal-impl,portal-kernel");
+
+		Module module = Module.createModule(
+			null, portalPath.resolve(Paths.get("modules", "apps", "foo-web")),
+			moduleDependencies, jarDependencies,
+			portalModuleDependencyProperties);
+
+		Set<Dependency> portalLibJars = new TreeSet<>();
+
+		for (int i = 0; i < 200; i++) {
+			portalLibJars.add(
+				new Dependency(
+					portalPath.resolve(
+						Paths.get("lib", "development", "lib" + i + ".jar")),
+					null, false));
+		}
+
+		_data = new HashMap<>();
+
+		_data.put("module", module);
+		_data.put("portalPath", portalPath);
+		_data.put("portalLibJars", portalLibJars);
+
+		processUnchangedProjectProperties();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtil.delete(_rootPath);
+	}
+
+	private Map<String, Object> _data;
+	private Path _rootPath;
+
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import com.liferay.netbeansproject.container.Dependency;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Tom Wang
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class GradleUtilBenchmark {
+
+	@Benchmark
+	public Set<Dependency> getJarDependencies() {
+		return GradleUtil.getJarDependencies(
+			_dependencyProperties, _portalPath, _symbolicNameSet);
+	}
+
+	/**
+	 * Measures reading the build.gradle and mapping its declarations to module
+	 * dependencies. The declarations are cached after the first invocation,
+	 * see {@link #parseBuildGradle()} for the tokenizer.
+	 */
+	@Benchmark
+	public Set<Dependency> getModuleDependencies() throws IOException {
+		return GradleUtil.getModuleDependencies(
+			_modulePath, _moduleProjectPaths);
+	}
+
+	@Benchmark
+	public List<BuildGradleParser.Declaration> parseBuildGradle() {
+		return BuildGradleParser.parse(_buildGradleContent);
+	}
+
+	@Setup
+	public void setUp() throws IOException {
+		_rootPath = Files.createTempDirectory("gradle-util-benchmark");
+
+		_portalPath = _rootPath.resolve("portal");
+
+		Path gradleCachePath = _portalPath.resolve(
+			Paths.get(".gradle", "caches", "modules-2", "files-2.1"));
+
+		_dependencyProperties = new Properties();
+
+		_dependencyProperties.setProperty(
+			"compile", _getJars(gradleCachePath, 200, ".jar"));
+		_dependencyProperties.setProperty(
+			"compileSources", _getJars(gradleCachePath, 200, "-sources.jar"));
+		_dependencyProperties.setProperty(
+			"compileTest", _getJars(gradleCachePath, 250, ".jar"));
+		_dependencyProperties.setProperty(
+			"testIntegrationRuntimeSources",
+			_getJars(gradleCachePath, 250, "-sources.jar"));
+
+		_symbolicNameSet = new HashSet<>();
+
+		for (int i = 0; i < 500; i++) {
+			_symbolicNameSet.add("com.liferay.module" + i);
+		}
+
+		_modulePath = _portalPath.resolve(
+			Paths.get("modules", "apps", "foo", "foo-web"));
+
+		Files.createDirectories(_modulePath);
+
+		_moduleProjectPaths = new HashMap<>();
+
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("dependencies {\n");
+
+		for (int i = 0; i < 50; i++) {
+			String symbolicName = "com.liferay.module" + i;
+
+			_moduleProjectPaths.put(
+				symbolicName, Paths.get("modules", "module" + i));
+
+			sb.append("\tprovided group: \"com.liferay\", name: \"");
+			sb.append(symbolicName);
+			sb.append("\", version: \"1.0.0\"\n");
+			sb.append("\tprovided project(\":apps:foo:foo");
+			sb.append(i);
+			sb.append("\")\n");
+			sb.append("\ttestCompile group: \"junit\", name: \"junit\"\n");
+		}
+
+		sb.append("}");
+
+		_buildGradleContent = sb.toString();
+
+		Files.write(
+			_modulePath.resolve("build.gradle"),
+			_buildGradleContent.getBytes());
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtil.delete(_rootPath);
+	}
+
+	private String _getJars(Path gradleCachePath, int count, String suffix) {
+		StringBuilder sb = new StringBuilder();
+
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				sb.append(':');
+			}
+
+			String name = "artifact" + i;
+
+			if ((i % 5) == 0) {
+				name = "com.liferay.module" + i;
+			}
+
+			sb.append(
+				gradleCachePath.resolve(
+					Paths.get(
+						"com.example", name, "1.0.0", "0123456789abcdef",
+						name + "-1.0.0" + suffix)));
+		}
+
+		return sb.toString();
+	}
+
+	private String _buildGradleContent;
+	private Properties _dependencyProperties;
+	private Path _modulePath;
+	private Map<String, Path> _moduleProjectPaths;
+	private Path _portalPath;
+	private Path _rootPath;
+	private Set<String> _symbolicNameSet;
+
+}
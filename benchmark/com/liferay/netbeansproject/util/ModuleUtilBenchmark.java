@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import com.liferay.netbeansproject.container.Module;
+
+import java.io.IOException;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Tom Wang
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class ModuleUtilBenchmark {
+
+	@Benchmark
+	public Map<Path, List<Module>> createModuleGroups() {
+		return ModuleUtil.createModuleGroups(_modules, 2, _groupStopWords);
+	}
+
+	@Setup
+	public void setUp() throws IOException {
+		Properties portalModuleDependencyProperties = new Properties();
+
+		portalModuleDependencyProperties.setProperty(
+			"portal.module.dependencies", "portal-impl,portal-kernel");
+
+		Path portalPath = Paths.get("/nonexistent", "portal");
+
+		_modules = new ArrayList<>();
+
+		for (int i = 0; i < 3000; i++) {
+			Path modulePath = portalPath.resolve(
+				Paths.get(
+					"modules", "apps", "app" + (i / 10), "module" + i));
+
+			_modules.add(
+				Module.createModule(
+					null, modulePath, null, null,
+					portalModuleDependencyProperties));
+		}
+
+		_groupStopWords = Arrays.asList("modules", "third-party");
+	}
+
+	private List<String> _groupStopWords;
+	private List<Module> _modules;
+
+}
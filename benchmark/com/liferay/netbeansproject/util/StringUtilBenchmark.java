@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Tom Wang
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class StringUtilBenchmark {
+
+	@Benchmark
+	public String replace() {
+		return StringUtil.replace(_jars, "/portal/", "${portal.dir}/");
+	}
+
+	@Setup
+	public void setUp() {
+		StringBuilder sb = new StringBuilder();
+
+		for (int i = 0; i < 200; i++) {
+			if (i > 0) {
+				sb.append(':');
+			}
+
+			sb.append("/portal/.gradle/caches/modules-2/files-2.1/");
+			sb.append("com.example/artifact");
+			sb.append(i);
+			sb.append("/1.0.0/0123456789abcdef/artifact");
+			sb.append(i);
+			sb.append("-1.0.0.jar");
+		}
+
+		_jars = sb.toString();
+
+		sb.setLength(0);
+
+		for (int i = 0; i < 200; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+
+			sb.append("com.liferay.module");
+			sb.append(i);
+		}
+
+		_symbolicNames = sb.toString();
+	}
+
+	@Benchmark
+	public String[] splitChar() {
+		return StringUtil.split(_jars, ':');
+	}
+
+	@Benchmark
+	public String[] splitString() {
+		return StringUtil.split(_symbolicNames, ", ");
+	}
+
+	private String _jars;
+	private String _symbolicNames;
+
+}
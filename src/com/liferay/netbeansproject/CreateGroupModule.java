@@ -16,15 +16,16 @@ package com.liferay.netbeansproject;
 
 import com.liferay.netbeansproject.container.Dependency;
 import com.liferay.netbeansproject.container.Module;
+import com.liferay.netbeansproject.container.ModuleGraph;
+import com.liferay.netbeansproject.jfr.ProjectGenerationEvent;
 import com.liferay.netbeansproject.template.FreeMarkerUtil;
 
-import java.io.Writer;
-
 import java.nio.file.Files;
 import java.nio.file.Path;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -35,14 +36,20 @@ import java.util.stream.Collectors;
  */
 public class CreateGroupModule {
 
-	public static void createModule(
+	public static String createModule(
 			Path projectPath, Path portalPath, Path groupPath,
-			List<Module> moduleList, Set<Dependency> portalLibJars)
+			List<Module> moduleList, ModuleGraph moduleGraph,
+			Set<Dependency> portalLibJars)
 		throws Exception {
 
+		ProjectGenerationEvent projectGenerationEvent =
+			new ProjectGenerationEvent();
+
+		projectGenerationEvent.begin();
+
 		Collections.sort(moduleList);
 
-		String projectName = _createProjectName(portalPath, groupPath);
+		String projectName = getProjectName(portalPath, groupPath);
 
 		projectPath = projectPath.resolve(projectName);
 
@@ -57,12 +64,15 @@ public class CreateGroupModule {
 				.distinct()
 				.collect(Collectors.toList());
 
-		Set<Dependency> moduleDependencies =
-			moduleList.stream()
-				.flatMap(module -> module.getModuleDependencies().stream())
-				.filter(
-					dependency -> !dependency.getPath().startsWith(groupPath))
-				.collect(Collectors.toSet());
+		Set<Dependency> moduleDependencies = new LinkedHashSet<>();
+
+		for (Dependency dependency :
+				moduleGraph.getModuleDependencies(moduleList)) {
+
+			if (!dependency.getPath().startsWith(groupPath)) {
+				moduleDependencies.add(dependency);
+			}
+		}
 
 		_appendProperties(
 			projectName, moduleList, jarDependencies, moduleDependencies,
@@ -71,6 +81,28 @@ public class CreateGroupModule {
 		_createProjectXML(
 			projectName, moduleList, moduleDependencies,
 			projectPath.resolve("nbproject/project.xml"));
+
+		if (projectGenerationEvent.shouldCommit()) {
+			projectGenerationEvent.setModuleCount(moduleList.size());
+			projectGenerationEvent.setProjectName(projectName);
+			projectGenerationEvent.setProjectType("group");
+
+			projectGenerationEvent.commit();
+		}
+
+		return projectName;
+	}
+
+	public static String getProjectName(Path portalPath, Path groupPath) {
+		if (portalPath.equals(groupPath)) {
+			return "portal";
+		}
+
+		groupPath = portalPath.relativize(groupPath);
+
+		String projectName = groupPath.toString();
+
+		return projectName.replace('/', '_');
 	}
 
 	private static void _appendProperties(
@@ -88,22 +120,9 @@ public class CreateGroupModule {
 		data.put("moduleDependencies", moduleDependencies);
 		data.put("portalLibJars", portalLibJars);
 
-		try (Writer writer = Files.newBufferedWriter(projectPropertiesPath)) {
-			FreeMarkerUtil.process(
-				"resources/group_project_properties.ftl", data, writer);
-		}
-	}
-
-	private static String _createProjectName(Path portalPath, Path groupPath) {
-		if (portalPath.equals(groupPath)) {
-			return "portal";
-		}
-
-		groupPath = portalPath.relativize(groupPath);
-
-		String projectName = groupPath.toString();
-
-		return projectName.replace('/', '_');
+		FreeMarkerUtil.process(
+			"resources/group_project_properties.ftl", data,
+			projectPropertiesPath);
 	}
 
 	private static void _createProjectXML(
@@ -117,20 +136,17 @@ public class CreateGroupModule {
 		data.put("moduleList", moduleList);
 		data.put("moduleDependencies", moduleDependencies);
 
-		try (Writer writer = Files.newBufferedWriter(projectXMLPath)) {
-			FreeMarkerUtil.process(
-				"resources/group_project_xml.ftl", data, writer);
-		}
+		FreeMarkerUtil.process(
+			"resources/group_project_xml.ftl", data, projectXMLPath);
 	}
 
 	private static void _generateBuildXML(String projectName, Path buildXMLPath)
 		throws Exception {
 
-		try (Writer writer = Files.newBufferedWriter(buildXMLPath)) {
-			FreeMarkerUtil.process(
-				"resources/build_xml.ftl",
-				Collections.singletonMap("projectName", projectName), writer);
-		}
+		FreeMarkerUtil.process(
+			"resources/build_xml.ftl",
+			Collections.singletonMap("projectName", projectName),
+			buildXMLPath);
 	}
 
 }
\ No newline at end of file
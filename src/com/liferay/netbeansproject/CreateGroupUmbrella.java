@@ -15,18 +15,15 @@
 package com.liferay.netbeansproject;
 
 import com.liferay.netbeansproject.template.FreeMarkerUtil;
-import com.liferay.netbeansproject.util.FileUtil;
-
-import java.io.Writer;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
 
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * @author Tom Wang
@@ -37,23 +34,18 @@ public class CreateGroupUmbrella {
 			Path portalPath, Set<Path> groupPathSet, Path groupUmbrellaPath)
 		throws Exception {
 
-		FileUtil.delete(groupUmbrellaPath);
-
 		Files.createDirectories(groupUmbrellaPath.resolve("nbproject"));
 
-		try (Writer writer = Files.newBufferedWriter(
-				groupUmbrellaPath.resolve("build.xml"))) {
-
-			FreeMarkerUtil.process(
-				"resources/build_xml.ftl",
-				Collections.singletonMap("projectName", "GroupModuleUmbrella"),
-				writer);
-		}
+		FreeMarkerUtil.process(
+			"resources/build_xml.ftl",
+			Collections.singletonMap("projectName", "GroupModuleUmbrella"),
+			groupUmbrellaPath.resolve("build.xml"));
 
-		Set<String> moduleNames = new HashSet<>();
+		Set<String> moduleNames = new TreeSet<>();
 
 		for (Path groupPath : groupPathSet) {
-			moduleNames.add(_createProjectName(portalPath, groupPath));
+			moduleNames.add(
+				CreateGroupModule.getProjectName(portalPath, groupPath));
 		}
 
 		Map<String, Object> data = new HashMap<>();
@@ -66,33 +58,15 @@ public class CreateGroupUmbrella {
 			"projectModulesPath", projectParentPath.resolve("group-modules"));
 		data.put("moduleNames", moduleNames);
 
-		try (Writer writer = Files.newBufferedWriter(
-				groupUmbrellaPath.resolve("nbproject/project.properties"))) {
-
-			FreeMarkerUtil.process(
-				"resources/umbrella_project_properties.ftl", data, writer);
-		}
+		FreeMarkerUtil.process(
+			"resources/umbrella_project_properties.ftl", data,
+			groupUmbrellaPath.resolve("nbproject/project.properties"));
 
 		data.put("portalName", portalPath.getFileName());
 
-		try (Writer writer = Files.newBufferedWriter(
-				groupUmbrellaPath.resolve("nbproject/project.xml"))) {
-
-			FreeMarkerUtil.process(
-				"resources/umbrella_project_xml.ftl", data, writer);
-		}
-	}
-
-	private static String _createProjectName(Path portalPath, Path groupPath) {
-		if (portalPath.equals(groupPath)) {
-			return "portal";
-		}
-
-		groupPath = portalPath.relativize(groupPath);
-
-		String projectName = groupPath.toString();
-
-		return projectName.replace('/', '_');
+		FreeMarkerUtil.process(
+			"resources/umbrella_project_xml.ftl", data,
+			groupUmbrellaPath.resolve("nbproject/project.xml"));
 	}
 
 }
\ No newline at end of file
@@ -16,10 +16,9 @@ package com.liferay.netbeansproject;
 
 import com.liferay.netbeansproject.container.Dependency;
 import com.liferay.netbeansproject.container.Module;
+import com.liferay.netbeansproject.jfr.ProjectGenerationEvent;
 import com.liferay.netbeansproject.template.FreeMarkerUtil;
 
-import java.io.Writer;
-
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -39,6 +38,11 @@ public class CreateModule {
 			Path portalPath)
 		throws Exception {
 
+		ProjectGenerationEvent projectGenerationEvent =
+			new ProjectGenerationEvent();
+
+		projectGenerationEvent.begin();
+
 		Path projectModulePath = projectPath.resolve(
 			Paths.get("modules", module.getModuleName()));
 
@@ -53,6 +57,14 @@ public class CreateModule {
 		_createProjectXML(
 			module, portalPath.getParent(),
 			projectModulePath.resolve("nbproject/project.xml"));
+
+		if (projectGenerationEvent.shouldCommit()) {
+			projectGenerationEvent.setModuleCount(1);
+			projectGenerationEvent.setProjectName(module.getModuleName());
+			projectGenerationEvent.setProjectType("module");
+
+			projectGenerationEvent.commit();
+		}
 	}
 
 	private static void _appendProperties(
@@ -66,10 +78,8 @@ public class CreateModule {
 		data.put("portalPath", portalPath);
 		data.put("portalLibJars", portalLibJars);
 
-		try (Writer writer = Files.newBufferedWriter(projectPropertiesPath)) {
-			FreeMarkerUtil.process(
-				"resources/project_properties.ftl", data, writer);
-		}
+		FreeMarkerUtil.process(
+			"resources/project_properties.ftl", data, projectPropertiesPath);
 	}
 
 	private static void _createProjectXML(
@@ -83,20 +93,17 @@ public class CreateModule {
 			"moduleDisplayName",
 			portalParentPath.relativize(module.getModulePath()));
 
-		try (Writer writer = Files.newBufferedWriter(projectXMLPath)) {
-			FreeMarkerUtil.process("resources/project_xml.ftl", data, writer);
-		}
+		FreeMarkerUtil.process(
+			"resources/project_xml.ftl", data, projectXMLPath);
 	}
 
 	private static void _generateBuildXML(Module module, Path buildXMLPath)
 		throws Exception {
 
-		try (Writer writer = Files.newBufferedWriter(buildXMLPath)) {
-			FreeMarkerUtil.process(
-				"resources/build_xml.ftl",
-				Collections.singletonMap("projectName", module.getModuleName()),
-				writer);
-		}
+		FreeMarkerUtil.process(
+			"resources/build_xml.ftl",
+			Collections.singletonMap("projectName", module.getModuleName()),
+			buildXMLPath);
 	}
 
 }
\ No newline at end of file
@@ -15,9 +15,6 @@
 package com.liferay.netbeansproject;
 
 import com.liferay.netbeansproject.template.FreeMarkerUtil;
-import com.liferay.netbeansproject.util.FileUtil;
-
-import java.io.Writer;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -26,6 +23,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * @author Tom Wang
@@ -36,19 +34,12 @@ public class CreateUmbrella {
 			Path portalPath, Set<String> moduleNames, Path projectPath)
 		throws Exception {
 
-		FileUtil.delete(projectPath);
-
 		Files.createDirectories(projectPath.resolve("nbproject"));
 
-		try (Writer writer = Files.newBufferedWriter(
-				projectPath.resolve("build.xml"))) {
-
-			FreeMarkerUtil.process(
-				"resources/build_xml.ftl",
-				Collections.singletonMap(
-					"projectName", "IndividualModuleUmbrella"),
-				writer);
-		}
+		FreeMarkerUtil.process(
+			"resources/build_xml.ftl",
+			Collections.singletonMap("projectName", "IndividualModuleUmbrella"),
+			projectPath.resolve("build.xml"));
 
 		Map<String, Object> data = new HashMap<>();
 
@@ -57,23 +48,17 @@ public class CreateUmbrella {
 		Path projectParentPath = projectPath.getParent();
 
 		data.put("projectModulesPath", projectParentPath.resolve("modules"));
-		data.put("moduleNames", moduleNames);
+		data.put("moduleNames", new TreeSet<>(moduleNames));
 
-		try (Writer writer = Files.newBufferedWriter(
-				projectPath.resolve("nbproject/project.properties"))) {
-
-			FreeMarkerUtil.process(
-				"resources/umbrella_project_properties.ftl", data, writer);
-		}
+		FreeMarkerUtil.process(
+			"resources/umbrella_project_properties.ftl", data,
+			projectPath.resolve("nbproject/project.properties"));
 
 		data.put("portalName", portalPath.getFileName());
 
-		try (Writer writer = Files.newBufferedWriter(
-				projectPath.resolve("nbproject/project.xml"))) {
-
-			FreeMarkerUtil.process(
-				"resources/umbrella_project_xml.ftl", data, writer);
-		}
+		FreeMarkerUtil.process(
+			"resources/umbrella_project_xml.ftl", data,
+			projectPath.resolve("nbproject/project.xml"));
 	}
 
 }
\ No newline at end of file
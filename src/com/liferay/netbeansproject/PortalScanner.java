@@ -0,0 +1,283 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject;
+
+import com.liferay.netbeansproject.ScanIndex.DirectoryEntry;
+import com.liferay.netbeansproject.util.ModuleUtil;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Walks a portal tree on a fork/join pool, forking one task per directory so
+ * that sibling subtrees are listed concurrently. A directory is a module root
+ * when its own listing contains a "src" entry, so no extra stat is issued to
+ * probe for it. Only directories are recorded as children, following
+ * symbolic links like the walk itself. Directories whose modification time
+ * matches the previous {@link ScanIndex} are not listed again. Every child
+ * directory is stat'ed once per scan, the attributes read while listing a
+ * directory are reused to descend into its children.
+ *
+ * @author Tom Wang
+ */
+public class PortalScanner {
+
+	public PortalScanner(ForkJoinPool forkJoinPool, Set<String> ignoredDirSet) {
+		_forkJoinPool = forkJoinPool;
+		_ignoredDirSet = ignoredDirSet;
+	}
+
+	public void scan(
+			Path portalPath, ScanIndex previousScanIndex, ScanIndex scanIndex,
+			ModuleVisitor moduleVisitor)
+		throws IOException {
+
+		if (_ignoredDirSet.contains(String.valueOf(portalPath.getFileName()))) {
+			return;
+		}
+
+		BasicFileAttributes basicFileAttributes = Files.readAttributes(
+			portalPath, BasicFileAttributes.class);
+
+		Set<Object> visitedFileKeys = ConcurrentHashMap.newKeySet();
+
+		try {
+			_forkJoinPool.invoke(
+				new ScanRecursiveAction(
+					portalPath, _getLastModifiedTime(basicFileAttributes),
+					previousScanIndex, scanIndex, moduleVisitor,
+					visitedFileKeys));
+		}
+		catch (UncheckedIOException uioe) {
+			throw uioe.getCause();
+		}
+	}
+
+	public interface ModuleVisitor {
+
+		public void visitModule(Path modulePath, String symbolicName)
+			throws IOException;
+
+	}
+
+	private static long _getLastModifiedTime(
+		BasicFileAttributes basicFileAttributes) {
+
+		FileTime fileTime = basicFileAttributes.lastModifiedTime();
+
+		return fileTime.toMillis();
+	}
+
+	private class ScanRecursiveAction extends RecursiveAction {
+
+		@Override
+		protected void compute() {
+			try {
+				_compute();
+			}
+			catch (IOException ioe) {
+				throw new UncheckedIOException(ioe);
+			}
+		}
+
+		private ScanRecursiveAction(
+			Path path, long lastModifiedTime, ScanIndex previousScanIndex,
+			ScanIndex scanIndex, ModuleVisitor moduleVisitor,
+			Set<Object> visitedFileKeys) {
+
+			_path = path;
+			_lastModifiedTime = lastModifiedTime;
+			_previousScanIndex = previousScanIndex;
+			_scanIndex = scanIndex;
+			_moduleVisitor = moduleVisitor;
+			_visitedFileKeys = visitedFileKeys;
+		}
+
+		private void _compute() throws IOException {
+			DirectoryEntry directoryEntry = _previousScanIndex.get(_path);
+
+			Map<String, BasicFileAttributes> childBasicFileAttributes =
+				new HashMap<>();
+
+			if ((directoryEntry == null) ||
+				(directoryEntry.getLastModifiedTime() != _lastModifiedTime)) {
+
+				directoryEntry = _list(childBasicFileAttributes);
+			}
+
+			if (directoryEntry.isModuleRoot()) {
+				_visitModule(directoryEntry);
+
+				return;
+			}
+
+			_scanIndex.put(_path, directoryEntry);
+
+			List<ScanRecursiveAction> scanRecursiveActions = new ArrayList<>();
+
+			for (String childDirName : directoryEntry.getChildDirNames()) {
+				if (_ignoredDirSet.contains(childDirName)) {
+					continue;
+				}
+
+				Path childPath = _path.resolve(childDirName);
+
+				BasicFileAttributes basicFileAttributes =
+					childBasicFileAttributes.get(childDirName);
+
+				if (basicFileAttributes == null) {
+					try {
+						basicFileAttributes = Files.readAttributes(
+							childPath, BasicFileAttributes.class);
+					}
+					catch (NoSuchFileException nsfe) {
+						continue;
+					}
+
+					if (!basicFileAttributes.isDirectory()) {
+						continue;
+					}
+				}
+
+				Object fileKey = basicFileAttributes.fileKey();
+
+				if ((fileKey != null) && !_visitedFileKeys.add(fileKey)) {
+					continue;
+				}
+
+				scanRecursiveActions.add(
+					new ScanRecursiveAction(
+						childPath, _getLastModifiedTime(basicFileAttributes),
+						_previousScanIndex, _scanIndex, _moduleVisitor,
+						_visitedFileKeys));
+			}
+
+			invokeAll(scanRecursiveActions);
+		}
+
+		/**
+		 * Lists the directory and records the attributes of every child
+		 * directory, so that they are not read again to descend into it.
+		 */
+		private DirectoryEntry _list(
+				Map<String, BasicFileAttributes> childBasicFileAttributes)
+			throws IOException {
+
+			List<String> childDirNames = new ArrayList<>();
+
+			try (DirectoryStream<Path> directoryStream =
+					Files.newDirectoryStream(_path)) {
+
+				for (Path childPath : directoryStream) {
+					String childName = String.valueOf(childPath.getFileName());
+
+					if (childName.equals("src")) {
+						return new DirectoryEntry(_lastModifiedTime, null, -1);
+					}
+
+					if (_ignoredDirSet.contains(childName)) {
+						continue;
+					}
+
+					BasicFileAttributes basicFileAttributes = null;
+
+					try {
+						basicFileAttributes = Files.readAttributes(
+							childPath, BasicFileAttributes.class);
+					}
+					catch (NoSuchFileException nsfe) {
+						continue;
+					}
+
+					if (basicFileAttributes.isDirectory()) {
+						childDirNames.add(childName);
+
+						childBasicFileAttributes.put(
+							childName, basicFileAttributes);
+					}
+				}
+			}
+
+			return new DirectoryEntry(_lastModifiedTime, childDirNames);
+		}
+
+		private void _visitModule(DirectoryEntry directoryEntry)
+			throws IOException {
+
+			Path modulePath = _path;
+
+			if (modulePath.endsWith("WEB-INF")) {
+				modulePath = modulePath.getParent();
+				modulePath = modulePath.getParent();
+			}
+
+			long bndLastModifiedTime = -1;
+
+			try {
+				BasicFileAttributes basicFileAttributes = Files.readAttributes(
+					modulePath.resolve("bnd.bnd"), BasicFileAttributes.class);
+
+				bndLastModifiedTime = _getLastModifiedTime(basicFileAttributes);
+			}
+			catch (NoSuchFileException nsfe) {
+			}
+
+			String symbolicName = directoryEntry.getSymbolicName();
+
+			if (bndLastModifiedTime !=
+					directoryEntry.getBndLastModifiedTime()) {
+
+				symbolicName = ModuleUtil.getSymbolicName(modulePath);
+			}
+
+			_scanIndex.put(
+				_path,
+				new DirectoryEntry(
+					_lastModifiedTime, symbolicName, bndLastModifiedTime));
+
+			_moduleVisitor.visitModule(modulePath, symbolicName);
+		}
+
+		private static final long serialVersionUID = 1L;
+
+		private final long _lastModifiedTime;
+		private final ModuleVisitor _moduleVisitor;
+		private final Path _path;
+		private final ScanIndex _previousScanIndex;
+		private final ScanIndex _scanIndex;
+		private final Set<Object> _visitedFileKeys;
+
+	}
+
+	private final ForkJoinPool _forkJoinPool;
+	private final Set<String> _ignoredDirSet;
+
+}
\ No newline at end of file
@@ -0,0 +1,344 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject;
+
+import com.liferay.netbeansproject.container.ModuleProbe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.stream.Stream;
+
+/**
+ * Watches the module directories of one or more portals and reports, per
+ * portal, the modules whose build files, lib jars or source roots appeared,
+ * changed or disappeared. Only the module root, its lib, src and test
+ * directories and the directories leading to the source and test roots of
+ * its {@link ModuleProbe} are watched. Parent directories of modules are
+ * watched too, but only react to added directories containing a build.gradle
+ * or bnd.bnd and to removed directories of known modules. Build output, Gradle
+ * caches and dot files are ignored, so that a rescan running Gradle does not
+ * trigger another rescan. After a rescan, only the changed modules and the
+ * modules that are not registered yet need to be registered again.
+ *
+ * @author Tom Wang
+ */
+public class PortalWatcher implements Closeable {
+
+	public PortalWatcher(long debounceMillis) throws IOException {
+		_debounceMillis = debounceMillis;
+
+		_watchService = FileSystems.getDefault().newWatchService();
+	}
+
+	@Override
+	public void close() throws IOException {
+		_watchService.close();
+	}
+
+	public boolean isRegistered(Path modulePath) {
+		return _modulePaths.contains(modulePath);
+	}
+
+	public void registerModule(Path portalPath, Path modulePath)
+		throws IOException {
+
+		_modulePaths.add(modulePath);
+
+		_register(portalPath, modulePath, modulePath);
+
+		ModuleProbe moduleProbe = ModuleProbe.probe(modulePath);
+
+		for (String dirName : _MODULE_DIR_NAMES) {
+			Path dirPath = modulePath.resolve(dirName);
+
+			if (Files.isDirectory(dirPath)) {
+				_register(portalPath, dirPath, modulePath);
+			}
+		}
+
+		for (Path rootPath :
+				Arrays.asList(
+					moduleProbe.getSourcePath(),
+					moduleProbe.getSourceResourcePath(),
+					moduleProbe.getTestUnitPath(),
+					moduleProbe.getTestUnitResourcePath(),
+					moduleProbe.getTestIntegrationPath(),
+					moduleProbe.getTestIntegrationResourcePath())) {
+
+			if (rootPath == null) {
+				continue;
+			}
+
+			Path dirPath = rootPath.getParent();
+
+			while (!dirPath.equals(modulePath)) {
+				if (Files.isDirectory(dirPath)) {
+					_register(portalPath, dirPath, modulePath);
+				}
+
+				dirPath = dirPath.getParent();
+			}
+		}
+
+		Path parentPath = modulePath.getParent();
+
+		while ((parentPath != null) && parentPath.startsWith(portalPath)) {
+			_register(portalPath, parentPath, null);
+
+			parentPath = parentPath.getParent();
+		}
+	}
+
+	/**
+	 * Blocks until at least one relevant change happened and no further
+	 * events arrive within the debounce window, then returns the affected
+	 * module paths keyed by portal path. An empty module set means the portal
+	 * needs a rescan for added or removed modules only.
+	 */
+	public Map<Path, Set<Path>> take() throws InterruptedException {
+		Map<Path, Set<Path>> changedModulePaths = new HashMap<>();
+
+		while (changedModulePaths.isEmpty()) {
+			WatchKey watchKey = _watchService.take();
+
+			while (watchKey != null) {
+				_process(watchKey, changedModulePaths);
+
+				watchKey = _watchService.poll(
+					_debounceMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		return changedModulePaths;
+	}
+
+	private static boolean _isIgnored(String fileName) {
+		if (fileName.startsWith(".") ||
+			_IGNORED_FILE_NAMES.contains(fileName)) {
+
+			return true;
+		}
+
+		return false;
+	}
+
+	private static boolean _isRelevant(
+		Path dirPath, Path modulePath, String fileName,
+		WatchEvent.Kind<?> kind) {
+
+		if (dirPath.equals(modulePath)) {
+			return _MODULE_FILE_NAMES.contains(fileName);
+		}
+
+		if (dirPath.equals(modulePath.resolve("lib"))) {
+			return fileName.endsWith(".jar");
+		}
+
+		if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
+			return false;
+		}
+
+		return _LAYOUT_FILE_NAMES.contains(fileName);
+	}
+
+	private Set<Path> _getModulePaths(
+		Map<Path, Set<Path>> changedModulePaths, Path portalPath) {
+
+		Set<Path> modulePaths = changedModulePaths.get(portalPath);
+
+		if (modulePaths == null) {
+			modulePaths = new HashSet<>();
+
+			changedModulePaths.put(portalPath, modulePaths);
+		}
+
+		return modulePaths;
+	}
+
+	/**
+	 * Returns whether an added or removed entry of a parent directory adds or
+	 * removes modules. A removed entry matters when it contained a known
+	 * module, an added one when a build.gradle or bnd.bnd is found below it.
+	 */
+	private boolean _isModuleChange(Path path, WatchEvent.Kind<?> kind) {
+		if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+			for (Path modulePath : _modulePaths) {
+				if (modulePath.startsWith(path)) {
+					_modulePaths.remove(modulePath);
+
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		if (!Files.isDirectory(path)) {
+			return false;
+		}
+
+		try (Stream<Path> stream = Files.find(
+				path, _MODULE_SEARCH_DEPTH,
+				new BiPredicate<Path, BasicFileAttributes>() {
+
+					@Override
+					public boolean test(
+						Path filePath,
+						BasicFileAttributes basicFileAttributes) {
+
+						String fileName = String.valueOf(
+							filePath.getFileName());
+
+						if (fileName.equals("bnd.bnd") ||
+							fileName.equals("build.gradle")) {
+
+							return true;
+						}
+
+						return false;
+					}
+
+				})) {
+
+			return stream.findAny().isPresent();
+		}
+		catch (IOException | UncheckedIOException e) {
+			return true;
+		}
+	}
+
+	private void _process(
+		WatchKey watchKey, Map<Path, Set<Path>> changedModulePaths) {
+
+		WatchedDir watchedDir = _watchedDirs.get(watchKey);
+
+		if (watchedDir == null) {
+			watchKey.cancel();
+
+			return;
+		}
+
+		for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+			WatchEvent.Kind<?> kind = watchEvent.kind();
+
+			if (kind == StandardWatchEventKinds.OVERFLOW) {
+				_getModulePaths(changedModulePaths, watchedDir._portalPath);
+
+				continue;
+			}
+
+			String fileName = String.valueOf(watchEvent.context());
+
+			if (_isIgnored(fileName)) {
+				continue;
+			}
+
+			if (watchedDir._modulePath == null) {
+				if ((kind != StandardWatchEventKinds.ENTRY_MODIFY) &&
+					_isModuleChange(
+						watchedDir._dirPath.resolve(fileName), kind)) {
+
+					_getModulePaths(changedModulePaths, watchedDir._portalPath);
+				}
+
+				continue;
+			}
+
+			if (_isRelevant(
+					watchedDir._dirPath, watchedDir._modulePath, fileName,
+					kind)) {
+
+				Set<Path> modulePaths = _getModulePaths(
+					changedModulePaths, watchedDir._portalPath);
+
+				modulePaths.add(watchedDir._modulePath);
+			}
+		}
+
+		if (!watchKey.reset()) {
+			_watchedDirs.remove(watchKey);
+		}
+	}
+
+	private void _register(Path portalPath, Path dirPath, Path modulePath)
+		throws IOException {
+
+		WatchKey watchKey = dirPath.register(
+			_watchService, StandardWatchEventKinds.ENTRY_CREATE,
+			StandardWatchEventKinds.ENTRY_DELETE,
+			StandardWatchEventKinds.ENTRY_MODIFY);
+
+		_watchedDirs.put(
+			watchKey, new WatchedDir(portalPath, dirPath, modulePath));
+	}
+
+	private static class WatchedDir {
+
+		private WatchedDir(Path portalPath, Path dirPath, Path modulePath) {
+			_portalPath = portalPath;
+			_dirPath = dirPath;
+			_modulePath = modulePath;
+		}
+
+		private final Path _dirPath;
+		private final Path _modulePath;
+		private final Path _portalPath;
+
+	}
+
+	private static final Set<String> _IGNORED_FILE_NAMES = new HashSet<>(
+		Arrays.asList("build", "classes"));
+
+	private static final Set<String> _LAYOUT_FILE_NAMES = new HashSet<>(
+		Arrays.asList(
+			"WEB-INF", "integration", "java", "main", "resources", "src",
+			"test", "testIntegration", "unit"));
+
+	private static final List<String> _MODULE_DIR_NAMES = Arrays.asList(
+		"lib", "src", "test");
+
+	private static final Set<String> _MODULE_FILE_NAMES = new HashSet<>(
+		Arrays.asList(
+			"bnd.bnd", "build.gradle", "docroot", "lib", "src", "test"));
+
+	private static final int _MODULE_SEARCH_DEPTH = 4;
+
+	private final long _debounceMillis;
+	private final Set<Path> _modulePaths = ConcurrentHashMap.newKeySet();
+	private final Map<WatchKey, WatchedDir> _watchedDirs =
+		new ConcurrentHashMap<>();
+	private final WatchService _watchService;
+
+}
\ No newline at end of file
@@ -15,33 +15,56 @@
 package com.liferay.netbeansproject;
 
 import com.liferay.netbeansproject.container.Dependency;
+import com.liferay.netbeansproject.container.DependencyPool;
 import com.liferay.netbeansproject.container.Module;
+import com.liferay.netbeansproject.container.ModuleGraph;
+import com.liferay.netbeansproject.container.ModuleIndex;
+import com.liferay.netbeansproject.container.ModuleProbe;
+import com.liferay.netbeansproject.template.FreeMarkerUtil;
 import com.liferay.netbeansproject.util.ArgumentsUtil;
-import com.liferay.netbeansproject.util.FileUtil;
+import com.liferay.netbeansproject.util.DependencyCache;
+import com.liferay.netbeansproject.util.ExecutorUtil;
+import com.liferay.netbeansproject.util.FileReaper;
+import com.liferay.netbeansproject.util.GradleCacheIndex;
+import com.liferay.netbeansproject.util.GradleCacheResolver;
 import com.liferay.netbeansproject.util.GradleUtil;
+import com.liferay.netbeansproject.util.MetricsRegistry;
 import com.liferay.netbeansproject.util.ModuleUtil;
 import com.liferay.netbeansproject.util.PropertiesUtil;
 import com.liferay.netbeansproject.util.StringUtil;
 
 import java.io.IOException;
 
-import java.nio.file.FileVisitOption;
-import java.nio.file.FileVisitResult;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.EnumSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
 
 /**
  * @author Tom Wang
@@ -56,6 +79,8 @@ public class ProjectBuilder {
 		Properties buildProperties = PropertiesUtil.loadProperties(
 			Paths.get("build.properties"));
 
+		_startRecording(buildProperties);
+
 		String[] portalDirs = StringUtil.split(
 			PropertiesUtil.getRequiredProperty(buildProperties, "portal.dirs"),
 			',');
@@ -78,42 +103,384 @@ public class ProjectBuilder {
 					buildProperties, "group.stop.words"),
 				','));
 
-		ProjectBuilder projectBuilder = new ProjectBuilder();
+		int parallelism = Runtime.getRuntime().availableProcessors();
+
+		String parallelismString = buildProperties.getProperty("parallelism");
+
+		if ((parallelismString != null) && !parallelismString.isEmpty()) {
+			parallelism = Integer.valueOf(parallelismString);
+		}
+
+		Path dependencyCacheDirPath = projectDirPath.resolve(
+			"dependency-cache");
+
+		String dependencyCacheDir = buildProperties.getProperty(
+			"dependency.cache.dir");
+
+		if ((dependencyCacheDir != null) && !dependencyCacheDir.isEmpty()) {
+			dependencyCacheDirPath = Paths.get(dependencyCacheDir);
+		}
+
+		String gradleCacheProvisioning = buildProperties.getProperty(
+			"gradle.cache.provisioning");
+
+		ProjectBuilder projectBuilder = new ProjectBuilder(
+			parallelism, dependencyCacheDirPath,
+			!"copy".equals(gradleCacheProvisioning),
+			projectDirPath.resolve(".trash"),
+			Boolean.valueOf(buildProperties.getProperty("module.info.export")),
+			Boolean.valueOf(
+				buildProperties.getProperty("dependency.resolution.offline")));
+
+		Map<Path, List<String>> portalGroupStopWords = new LinkedHashMap<>();
+
+		List<Path> portalDirPaths = new ArrayList<>();
+		List<Callable<Set<Path>>> scanPortalCallables = new ArrayList<>();
 
 		for (String portalDir : portalDirs) {
-			Path portalDirPath = Paths.get(portalDir);
+			final Path portalDirPath = Paths.get(portalDir);
+
+			portalDirPaths.add(portalDirPath);
 
-			List<String> currentGroupStopWords = new ArrayList<>(
+			final List<String> currentGroupStopWords = new ArrayList<>(
 				groupStopWords);
 
 			currentGroupStopWords.add(
 				String.valueOf(
 					portalDirPath.getName(portalDirPath.getNameCount() - 2)));
 
-			projectBuilder.scanPortal(
-				rebuild, projectDirPath.resolve(portalDirPath.getFileName()),
-				portalDirPath, displayGradleProcessOutput, ignoredDirs,
-				groupDepth, currentGroupStopWords);
+			portalGroupStopWords.put(portalDirPath, currentGroupStopWords);
+
+			scanPortalCallables.add(
+				new Callable<Set<Path>>() {
+
+					@Override
+					public Set<Path> call() throws Exception {
+						return projectBuilder.scanPortal(
+							rebuild,
+							projectDirPath.resolve(portalDirPath.getFileName()),
+							portalDirPath, displayGradleProcessOutput,
+							ignoredDirs, groupDepth, currentGroupStopWords);
+					}
+
+				});
+		}
+
+		int portalConcurrency = Integer.valueOf(
+			PropertiesUtil.getRequiredProperty(
+				buildProperties, "portal.concurrency"));
+
+		ExecutorService executorService = Executors.newFixedThreadPool(
+			Math.min(portalConcurrency, scanPortalCallables.size()));
+
+		Map<Path, Set<Path>> portalModulePaths = new HashMap<>();
+
+		try {
+			List<Set<Path>> modulePathsList = ExecutorUtil.invokeAll(
+				executorService, scanPortalCallables);
+
+			for (int i = 0; i < portalDirPaths.size(); i++) {
+				portalModulePaths.put(
+					portalDirPaths.get(i), modulePathsList.get(i));
+			}
+		}
+		finally {
+			executorService.shutdown();
+		}
+
+		projectBuilder.awaitDeletions();
+
+		_printHeapUsage();
+
+		System.out.println(
+			"Wrote " + FreeMarkerUtil.getWrittenCount() +
+				" project files, skipped " + FreeMarkerUtil.getSkippedCount() +
+					" unchanged project files");
+
+		if (!Boolean.valueOf(arguments.get("watch"))) {
+			return;
+		}
+
+		long watchDebounceMillis = Long.valueOf(
+			PropertiesUtil.getRequiredProperty(
+				buildProperties, "watch.debounce.millis"));
+
+		try (PortalWatcher portalWatcher = new PortalWatcher(
+				watchDebounceMillis)) {
+
+			_registerModules(portalWatcher, portalModulePaths);
+
+			System.out.println("Watching " + portalModulePaths.keySet());
+
+			while (true) {
+				Map<Path, Set<Path>> changedModulePaths = portalWatcher.take();
+
+				for (Map.Entry<Path, Set<Path>> entry :
+						changedModulePaths.entrySet()) {
+
+					Path portalDirPath = entry.getKey();
+					Set<Path> modulePaths = entry.getValue();
+
+					System.out.println(
+						"Updating " + portalDirPath + " for " + modulePaths);
+
+					try {
+						Path projectPath = projectDirPath.resolve(
+							portalDirPath.getFileName());
+
+						for (Path modulePath :
+								projectBuilder.scanPortal(
+									false, projectPath, portalDirPath,
+									displayGradleProcessOutput, ignoredDirs,
+									groupDepth,
+									portalGroupStopWords.get(portalDirPath),
+									modulePaths)) {
+
+							if (modulePaths.contains(modulePath) ||
+								!portalWatcher.isRegistered(modulePath)) {
+
+								portalWatcher.registerModule(
+									portalDirPath, modulePath);
+							}
+						}
+					}
+					catch (Exception e) {
+						System.out.println(
+							"Unable to update " + portalDirPath + ": " + e);
+					}
+				}
+
+				try {
+					projectBuilder.awaitDeletions();
+				}
+				catch (Exception e) {
+					System.out.println(
+						"Unable to delete stale projects: " + e);
+				}
+			}
 		}
 	}
 
-	public void scanPortal(
-			boolean rebuild, final Path projectPath, Path portalPath,
-			final boolean displayGradleProcessOutput, String ignoredDirs,
+	public ProjectBuilder(
+			int parallelism, Path dependencyCacheDirPath,
+			boolean linkGradleCache, Path trashDirPath,
+			boolean exportModuleInfo, boolean offlineResolution)
+		throws IOException {
+
+		_forkJoinPool = new ForkJoinPool(parallelism);
+		_dependencyCacheDirPath = dependencyCacheDirPath;
+		_linkGradleCache = linkGradleCache;
+		_exportModuleInfo = exportModuleInfo;
+		_offlineResolution = offlineResolution;
+
+		_gradleCacheIndex = GradleCacheIndex.load(
+			dependencyCacheDirPath.resolve("gradle-cache.index"));
+
+		_fileReaper = new FileReaper(trashDirPath, parallelism);
+	}
+
+	public void awaitDeletions() throws Exception {
+		_fileReaper.await();
+	}
+
+	public Set<Path> scanPortal(
+			boolean rebuild, Path projectPath, Path portalPath,
+			boolean displayGradleProcessOutput, String ignoredDirs,
 			int groupDepth, List<String> groupStopWords)
 		throws Exception {
 
-		final Map<Path, Module> oldModulePaths = new HashMap<>();
+		return scanPortal(
+			rebuild, projectPath, portalPath, displayGradleProcessOutput,
+			ignoredDirs, groupDepth, groupStopWords,
+			Collections.<Path>emptySet());
+	}
+
+	public Set<Path> scanPortal(
+			boolean rebuild, Path projectPath, Path portalPath,
+			boolean displayGradleProcessOutput, String ignoredDirs,
+			int groupDepth, List<String> groupStopWords,
+			Set<Path> changedModulePaths)
+		throws Exception {
+
+		DependencyPool.acquire();
+
+		try {
+			return _scanPortal(
+				rebuild, projectPath, portalPath, displayGradleProcessOutput,
+				ignoredDirs, groupDepth, groupStopWords, changedModulePaths);
+		}
+		finally {
+			DependencyPool.release();
+		}
+	}
+
+	/**
+	 * Records the signature of the project and returns whether it differs
+	 * from the previous run or the project directory is missing.
+	 */
+	private static boolean _isChanged(
+		SignatureIndex previousSignatureIndex, SignatureIndex signatureIndex,
+		String key, String signature, Path projectPath) {
+
+		signatureIndex.put(key, signature);
+
+		if (signature.equals(previousSignatureIndex.get(key)) &&
+			Files.exists(projectPath)) {
+
+			return false;
+		}
+
+		return true;
+	}
+
+	private static void _printHeapUsage() {
+		Runtime runtime = Runtime.getRuntime();
+
+		long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("Heap used ");
+		sb.append(usedMemory >> 20);
+		sb.append(" MB of ");
+		sb.append(runtime.maxMemory() >> 20);
+		sb.append(" MB max");
+
+		System.out.println(sb.toString());
+	}
+
+	private static void _registerModules(
+			PortalWatcher portalWatcher, Map<Path, Set<Path>> portalModulePaths)
+		throws IOException {
+
+		for (Map.Entry<Path, Set<Path>> entry : portalModulePaths.entrySet()) {
+			for (Path modulePath : entry.getValue()) {
+				portalWatcher.registerModule(entry.getKey(), modulePath);
+			}
+		}
+	}
+
+	/**
+	 * Starts a flight recording that is written to the configured file when
+	 * the JVM exits, so both single runs and watch mode are covered.
+	 */
+	private static void _startRecording(Properties buildProperties)
+		throws Exception {
+
+		String recordingFile = buildProperties.getProperty(
+			"jfr.recording.file");
+
+		if ((recordingFile == null) || recordingFile.isEmpty()) {
+			return;
+		}
+
+		Recording recording = new Recording(
+			Configuration.getConfiguration(
+				PropertiesUtil.getRequiredProperty(
+					buildProperties, "jfr.recording.settings")));
+
+		recording.setDestination(Paths.get(recordingFile));
+		recording.setDumpOnExit(true);
+		recording.setName("ProjectBuilder");
+
+		recording.start();
+
+		System.out.println("Recording flight events to " + recordingFile);
+	}
+
+	private void _deleteStaleProjects(Path dirPath, Set<String> projectNames)
+		throws IOException {
+
+		if (Files.notExists(dirPath)) {
+			return;
+		}
+
+		try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(
+				dirPath)) {
+
+			for (Path path : directoryStream) {
+				Path fileName = path.getFileName();
+
+				if (!projectNames.contains(fileName.toString())) {
+					_fileReaper.delete(path);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads the modules of the previous run. Indexed modules whose project
+	 * directory was deleted are left out, so that they count as changed and
+	 * are generated again.
+	 */
+	private void _loadExistingProjects(
+			Path projectPath, Map<Path, Module> modules)
+		throws IOException {
+
+		Path projectModulesPath = projectPath.resolve("modules");
+
+		Map<Path, Module> indexedModules = ModuleIndex.load(
+			projectPath.resolve("module.index"), projectModulesPath);
+
+		if (indexedModules != null) {
+			Set<String> projectNames = new HashSet<>();
+
+			if (Files.exists(projectModulesPath)) {
+				try (DirectoryStream<Path> directoryStream =
+						Files.newDirectoryStream(projectModulesPath)) {
+
+					for (Path path : directoryStream) {
+						projectNames.add(String.valueOf(path.getFileName()));
+					}
+				}
+			}
+
+			for (Map.Entry<Path, Module> entry : indexedModules.entrySet()) {
+				Module module = entry.getValue();
+
+				if (projectNames.contains(module.getModuleName())) {
+					modules.put(entry.getKey(), module);
+				}
+			}
+
+			return;
+		}
+
+		if (Files.exists(projectModulesPath)) {
+			for (Path path : Files.newDirectoryStream(projectModulesPath)) {
+				Module module = Module.load(path);
+
+				if (module != null) {
+					modules.put(module.getModulePath(), module);
+				}
+			}
+		}
+	}
+
+	private Set<Path> _scanPortal(
+			boolean rebuild, final Path projectPath, final Path portalPath,
+			final boolean displayGradleProcessOutput, String ignoredDirs,
+			int groupDepth, List<String> groupStopWords,
+			final Set<Path> changedModulePaths)
+		throws Exception {
+
+		final MetricsRegistry metricsRegistry = new MetricsRegistry(
+			String.valueOf(portalPath));
+
+		long startTime = System.nanoTime();
+
+		final Map<Path, Module> oldModulePaths = new ConcurrentHashMap<>();
 
 		if (!rebuild) {
-			_loadExistingProjects(
-				projectPath.resolve("modules"), oldModulePaths);
+			_loadExistingProjects(projectPath, oldModulePaths);
 
 			if (oldModulePaths.isEmpty()) {
 				rebuild = true;
 			}
 		}
 
+		startTime = metricsRegistry.recordPhase("loadExisting", startTime);
+
 		final Set<String> ignoredDirSet = new HashSet<>(
 			Arrays.asList(StringUtil.split(ignoredDirs, ',')));
 
@@ -121,197 +488,612 @@ public class ProjectBuilder {
 			PropertiesUtil.loadProperties(
 				Paths.get("portal-module-dependency.properties"));
 
-		final Set<String> moduleNames = new HashSet<>();
+		final Set<String> moduleNames = ConcurrentHashMap.newKeySet();
 
-		final Map<String, Path> moduleProjectPaths = new HashMap<>();
+		final Set<Path> modulePaths = ConcurrentHashMap.newKeySet();
 
-		final Set<Path> newModulePaths = new HashSet<>();
+		final Map<String, Path> moduleProjectPaths = new ConcurrentHashMap<>();
 
-		final List<Module> modules = new ArrayList<>();
+		final Set<Path> newModulePaths = ConcurrentHashMap.newKeySet();
 
-		Files.walkFileTree(
-			portalPath, EnumSet.allOf(FileVisitOption.class), Integer.MAX_VALUE,
-			new SimpleFileVisitor<Path>() {
+		final Map<Path, ModuleProbe> moduleProbes = new ConcurrentHashMap<>();
 
-				@Override
-				public FileVisitResult preVisitDirectory(
-						Path path, BasicFileAttributes basicFileAttributes)
-					throws IOException {
+		final List<Module> modules = Collections.synchronizedList(
+			new ArrayList<>());
 
-					if (ignoredDirSet.contains(
-							String.valueOf(path.getFileName()))) {
+		Path scanIndexPath = projectPath.resolve("scan.index");
 
-						return FileVisitResult.SKIP_SUBTREE;
-					}
+		ScanIndex previousScanIndex = null;
 
-					if (!Files.exists(path.resolve("src"))) {
-						return FileVisitResult.CONTINUE;
-					}
+		if (rebuild) {
+			previousScanIndex = new ScanIndex(ignoredDirs);
+		}
+		else {
+			previousScanIndex = ScanIndex.load(scanIndexPath, ignoredDirs);
+		}
 
-					if (path.endsWith("WEB-INF")) {
-						path = path.getParent();
-						path = path.getParent();
-					}
+		ScanIndex scanIndex = new ScanIndex(ignoredDirs);
+
+		PortalScanner portalScanner = new PortalScanner(
+			_forkJoinPool, ignoredDirSet);
+
+		portalScanner.scan(
+			portalPath, previousScanIndex, scanIndex,
+			new PortalScanner.ModuleVisitor() {
 
-					moduleNames.add(String.valueOf(path.getFileName()));
+				@Override
+				public void visitModule(Path modulePath, String symbolicName)
+					throws IOException {
+
+					moduleNames.add(String.valueOf(modulePath.getFileName()));
 
-					String symbolicName = ModuleUtil.getSymbolicName(path);
+					modulePaths.add(modulePath);
 
 					if (symbolicName != null) {
 						moduleProjectPaths.put(
 							symbolicName,
 							Paths.get(
-								"modules", String.valueOf(path.getFileName())));
+								"modules",
+								String.valueOf(modulePath.getFileName())));
+					}
+
+					long startTime = System.nanoTime();
+
+					Module module = oldModulePaths.remove(modulePath);
+
+					ModuleProbe moduleProbe = ModuleProbe.probe(modulePath);
+
+					Module currentModule = null;
+
+					if ((module != null) &&
+						!changedModulePaths.contains(modulePath)) {
+
+						currentModule = Module.createModule(
+							null, modulePath, null, null,
+							portalModuleDependencyProperties, module,
+							moduleProbe);
 					}
 
-					Module module = oldModulePaths.remove(path);
+					if ((currentModule == null) ||
+						!module.equals(currentModule)) {
 
-					if ((module == null) ||
-						!module.equals(
-							Module.createModule(
-								null, path, null, null,
-								portalModuleDependencyProperties))) {
+						newModulePaths.add(modulePath);
 
-						newModulePaths.add(path);
+						moduleProbes.put(modulePath, moduleProbe);
 					}
 					else {
-						modules.add(module);
+						modules.add(
+							module.withStatSignature(
+								currentModule.getStatSignature()));
 					}
 
-					return FileVisitResult.SKIP_SUBTREE;
+					metricsRegistry.recordModuleTime(
+						"fingerprint",
+						String.valueOf(portalPath.relativize(modulePath)),
+						System.nanoTime() - startTime);
 				}
 
 			});
 
+		metricsRegistry.addCount("modules", modulePaths.size());
+		metricsRegistry.addCount("changedModules", newModulePaths.size());
+		metricsRegistry.addCount(
+			"unchangedModules", modulePaths.size() - newModulePaths.size());
+
+		startTime = metricsRegistry.recordPhase("walk", startTime);
+
 		Map<Path, Set<Dependency>> moduleDependenciesMap = new HashMap<>();
 
 		for (Path newModulePath : newModulePaths) {
+			long moduleStartTime = System.nanoTime();
+
 			moduleDependenciesMap.put(
 				newModulePath,
 				GradleUtil.getModuleDependencies(
 					newModulePath, moduleProjectPaths));
+
+			metricsRegistry.recordModuleTime(
+				"buildFileParsing",
+				String.valueOf(portalPath.relativize(newModulePath)),
+				System.nanoTime() - moduleStartTime);
 		}
 
-		Map<String, Set<Dependency>> jarDependenciesMap = new HashMap<>();
+		startTime = metricsRegistry.recordPhase("buildFileParsing", startTime);
+
+		_deleteStaleProjects(projectPath.resolve("modules"), moduleNames);
+
+		startTime = metricsRegistry.recordPhase("staleDeletion", startTime);
 
-		for (Path oldModulePath : oldModulePaths.keySet()) {
-			Path oldModulePathName = oldModulePath.getFileName();
+		Path portalModulesPath = portalPath.resolve("modules");
 
-			FileUtil.delete(
-				projectPath.resolve(
-					Paths.get("modules", oldModulePathName.toString())));
+		List<Path> gradleModulePaths = new ArrayList<>();
+
+		for (Path newModulePath : newModulePaths) {
+			if ((!rebuild || newModulePath.startsWith(portalModulesPath)) &&
+				Files.exists(newModulePath.resolve("build.gradle"))) {
+
+				gradleModulePaths.add(newModulePath);
+			}
 		}
 
-		if (rebuild) {
-			FileUtil.delete(projectPath);
+		Collections.sort(gradleModulePaths);
 
-			jarDependenciesMap = GradleUtil.getJarDependencies(
-				portalPath, portalPath.resolve("modules"),
-				moduleProjectPaths.keySet(), displayGradleProcessOutput, false);
+		final Set<Dependency> portalLibJars = ModuleUtil.getPortalLibJars(
+			portalPath);
+
+		DependencyCache dependencyCache = new DependencyCache(
+			_dependencyCacheDirPath, portalPath);
+
+		final ModuleGenerator moduleGenerator = new ModuleGenerator(
+			projectPath, portalPath, dependencyCache, moduleDependenciesMap,
+			moduleProbes, moduleProjectPaths.keySet(), portalLibJars,
+			portalModuleDependencyProperties, metricsRegistry);
+
+		for (Path newModulePath : newModulePaths) {
+			if (!gradleModulePaths.contains(newModulePath)) {
+				moduleGenerator.submit(newModulePath, null, false);
+			}
 		}
-		else {
-			for (Path newModulePath : newModulePaths) {
-				Path newModulePathName = newModulePath.getFileName();
-
-				FileUtil.delete(
-					projectPath.resolve(
-						Paths.get("modules", newModulePathName.toString())));
-
-				if (Files.exists(newModulePath.resolve("build.gradle"))) {
-					jarDependenciesMap.putAll(
-						GradleUtil.getJarDependencies(
-							portalPath, newModulePath,
-							moduleProjectPaths.keySet(),
-							displayGradleProcessOutput, true));
+
+		List<Path> unresolvedModulePaths = new ArrayList<>();
+
+		for (Path gradleModulePath : gradleModulePaths) {
+			Properties dependencyProperties = dependencyCache.load(
+				gradleModulePath);
+
+			if (dependencyProperties == null) {
+				unresolvedModulePaths.add(gradleModulePath);
+			}
+			else {
+				moduleGenerator.submit(
+					gradleModulePath, dependencyProperties, false);
+			}
+		}
+
+		metricsRegistry.addCount(
+			"dependencyCacheHits",
+			gradleModulePaths.size() - unresolvedModulePaths.size());
+		metricsRegistry.addCount(
+			"dependencyCacheMisses", unresolvedModulePaths.size());
+
+		startTime = metricsRegistry.recordPhase("dependencyCache", startTime);
+
+		Path workGradleCachePath = Paths.get(
+			".gradle", "caches", "modules-2", "files-2.1");
+
+		List<Path> gradleCachePaths = Arrays.asList(
+			portalPath.resolve(workGradleCachePath), workGradleCachePath);
+
+		if (!gradleModulePaths.isEmpty()) {
+			for (Path gradleCachePath : gradleCachePaths) {
+				_gradleCacheIndex.index(gradleCachePath);
+			}
+
+			metricsRegistry.addCount(
+				"gradleCacheArtifacts", _gradleCacheIndex.size());
+
+			startTime = metricsRegistry.recordPhase(
+				"gradleCacheIndex", startTime);
+		}
+
+		if (_offlineResolution && !unresolvedModulePaths.isEmpty()) {
+			GradleCacheResolver gradleCacheResolver = new GradleCacheResolver(
+				gradleCachePaths, _gradleCacheIndex);
+
+			int unresolvedCount = unresolvedModulePaths.size();
+
+			Iterator<Path> iterator = unresolvedModulePaths.iterator();
+
+			while (iterator.hasNext()) {
+				Path unresolvedModulePath = iterator.next();
+
+				Properties dependencyProperties = gradleCacheResolver.resolve(
+					unresolvedModulePath, moduleProjectPaths.keySet());
+
+				if (dependencyProperties != null) {
+					moduleGenerator.submit(
+						unresolvedModulePath, dependencyProperties, false);
+
+					iterator.remove();
 				}
 			}
 
-			GradleUtil.stopGradleDaemon(portalPath, displayGradleProcessOutput);
+			metricsRegistry.addCount(
+				"offlineResolved",
+				unresolvedCount - unresolvedModulePaths.size());
+			metricsRegistry.addCount(
+				"offlineFallbacks", unresolvedModulePaths.size());
+
+			startTime = metricsRegistry.recordPhase(
+				"offlineResolution", startTime);
 		}
 
-		Set<Dependency> portalLibJars = ModuleUtil.getPortalLibJars(portalPath);
+		if (!unresolvedModulePaths.isEmpty()) {
+			final Map<String, List<Path>> pendingModulePaths =
+				new ConcurrentHashMap<>();
 
-		for (Path newModulePath : newModulePaths) {
-			Module module = Module.createModule(
-				projectPath.resolve("modules"), newModulePath,
-				moduleDependenciesMap.get(newModulePath),
-				jarDependenciesMap.get(
-					String.valueOf(newModulePath.getFileName())),
-				portalModuleDependencyProperties);
+			for (Path unresolvedModulePath : unresolvedModulePaths) {
+				String moduleName = String.valueOf(
+					unresolvedModulePath.getFileName());
 
-			modules.add(module);
+				List<Path> paths = pendingModulePaths.get(moduleName);
 
-			CreateModule.createModule(
-				module, projectPath, portalLibJars, portalPath);
+				if (paths == null) {
+					paths = new ArrayList<>();
+
+					pendingModulePaths.put(moduleName, paths);
+				}
+
+				paths.add(unresolvedModulePath);
+			}
+
+			GradleUtil.DependencyListener dependencyListener =
+				new GradleUtil.DependencyListener() {
+
+					@Override
+					public void onDependencies(
+						String projectName, Properties dependencyProperties) {
+
+						List<Path> paths = pendingModulePaths.remove(
+							projectName);
+
+						if (paths == null) {
+							return;
+						}
+
+						for (Path path : paths) {
+							moduleGenerator.submit(
+								path, dependencyProperties, true);
+						}
+					}
+
+				};
+
+			if (rebuild) {
+				GradleUtil.getDependencyProperties(
+					portalPath, Collections.singletonList(portalModulesPath),
+					displayGradleProcessOutput, false, _linkGradleCache,
+					metricsRegistry, dependencyListener);
+			}
+			else {
+				Lock readLock = _gradleDaemonReadWriteLock.readLock();
+
+				readLock.lock();
+
+				try {
+					GradleUtil.getDependencyProperties(
+						portalPath, unresolvedModulePaths,
+						displayGradleProcessOutput, true, _linkGradleCache,
+						metricsRegistry, dependencyListener);
+				}
+				finally {
+					readLock.unlock();
+				}
+
+				_stopGradleDaemon(portalPath, displayGradleProcessOutput);
+			}
+
+			for (List<Path> paths : pendingModulePaths.values()) {
+				for (Path path : paths) {
+					moduleGenerator.submit(path, new Properties(), true);
+				}
+			}
+
+			_gradleCacheIndex.index(workGradleCachePath);
+		}
+
+		startTime = metricsRegistry.recordPhase("gradleResolution", startTime);
+
+		List<Path> sortedNewModulePaths = new ArrayList<>(newModulePaths);
+
+		Collections.sort(sortedNewModulePaths);
+
+		modules.addAll(moduleGenerator.getModules(sortedNewModulePaths));
+
+		startTime = metricsRegistry.recordPhase("moduleGeneration", startTime);
+
+		Path signatureIndexPath = projectPath.resolve("signature.index");
+
+		final SignatureIndex previousSignatureIndex;
+
+		if (rebuild) {
+			previousSignatureIndex = new SignatureIndex();
+		}
+		else {
+			previousSignatureIndex = SignatureIndex.load(signatureIndexPath);
+		}
+
+		final SignatureIndex signatureIndex = new SignatureIndex();
+
+		Path umbrellaPath = projectPath.resolve("umbrella");
+
+		if (_isChanged(
+				previousSignatureIndex, signatureIndex, "umbrella",
+				SignatureIndex.getSignature(
+					Arrays.asList(portalPath, umbrellaPath),
+					new TreeSet<>(moduleNames)),
+				umbrellaPath)) {
+
+			CreateUmbrella.createUmbrella(
+				portalPath, moduleNames, umbrellaPath);
 		}
 
-		CreateUmbrella.createUmbrella(
-			portalPath, moduleNames, projectPath.resolve("umbrella"));
+		startTime = metricsRegistry.recordPhase("umbrella", startTime);
+
+		final ModuleGraph moduleGraph = new ModuleGraph(modules);
+
+		List<Set<String>> cycles = moduleGraph.getCycles();
+
+		for (Set<String> cycle : cycles) {
+			System.out.println("Found module dependency cycle " + cycle);
+		}
 
-		Map<Path, List<Module>> moduleGroups = _createModuleGroups(
+		metricsRegistry.addCount("moduleDependencyCycles", cycles.size());
+
+		Map<Path, List<Module>> moduleGroups = ModuleUtil.createModuleGroups(
 			modules, groupDepth, groupStopWords);
 
-		Path groupProjectPath = projectPath.resolve("group-modules");
+		metricsRegistry.addCount("moduleGroups", moduleGroups.size());
+
+		startTime = metricsRegistry.recordPhase("grouping", startTime);
+
+		final Path groupProjectPath = projectPath.resolve("group-modules");
+
+		final String portalLibJarsSignature = SignatureIndex.getSignature(
+			portalLibJars);
+
+		List<Callable<String>> createGroupModuleCallables = new ArrayList<>();
+
+		for (final Map.Entry<Path, List<Module>> entry :
+				new TreeMap<>(moduleGroups).entrySet()) {
+
+			createGroupModuleCallables.add(
+				new Callable<String>() {
+
+					@Override
+					public String call() throws Exception {
+						Path groupPath = entry.getKey();
+						List<Module> groupModules = entry.getValue();
+
+						String projectName = CreateGroupModule.getProjectName(
+							portalPath, groupPath);
+
+						List<Path> groupModulePaths = new ArrayList<>();
+
+						boolean regenerated = false;
+
+						for (Module module : groupModules) {
+							Path modulePath = module.getModulePath();
+
+							groupModulePaths.add(modulePath);
+
+							if (newModulePaths.contains(modulePath)) {
+								regenerated = true;
+							}
+						}
+
+						Collections.sort(groupModulePaths);
 
-		FileUtil.delete(groupProjectPath);
+						if (_isChanged(
+								previousSignatureIndex, signatureIndex,
+								"group-modules/" + projectName,
+								SignatureIndex.getSignature(
+									Arrays.asList(
+										portalPath, groupPath,
+										portalLibJarsSignature),
+									groupModulePaths),
+								groupProjectPath.resolve(projectName)) ||
+							regenerated) {
 
-		for (Map.Entry<Path, List<Module>> entry : moduleGroups.entrySet()) {
-			CreateGroupModule.createModule(
-				groupProjectPath, portalPath, entry.getKey(), entry.getValue(),
-				portalLibJars);
+							metricsRegistry.addCount("changedGroups", 1);
+
+							return CreateGroupModule.createModule(
+								groupProjectPath, portalPath, groupPath,
+								groupModules, moduleGraph, portalLibJars);
+						}
+
+						metricsRegistry.addCount("unchangedGroups", 1);
+
+						return projectName;
+					}
+
+				});
+		}
+
+		Set<String> groupProjectNames = new HashSet<>(
+			ExecutorUtil.invokeAll(_forkJoinPool, createGroupModuleCallables));
+
+		Path groupUmbrellaPath = projectPath.resolve("group-umbrella");
+
+		if (_isChanged(
+				previousSignatureIndex, signatureIndex, "group-umbrella",
+				SignatureIndex.getSignature(
+					Arrays.asList(portalPath, groupUmbrellaPath),
+					new TreeSet<>(groupProjectNames)),
+				groupUmbrellaPath)) {
+
+			CreateGroupUmbrella.createUmbrella(
+				portalPath, moduleGroups.keySet(), groupUmbrellaPath);
 		}
 
-		CreateGroupUmbrella.createUmbrella(
-			portalPath, moduleGroups.keySet(),
-			projectPath.resolve("group-umbrella"));
+		startTime = metricsRegistry.recordPhase("groupGeneration", startTime);
+
+		_deleteStaleProjects(groupProjectPath, groupProjectNames);
+
+		startTime = metricsRegistry.recordPhase("staleDeletion", startTime);
+
+		ModuleIndex.save(projectPath.resolve("module.index"), modules);
+
+		scanIndex.save(scanIndexPath);
+
+		signatureIndex.save(signatureIndexPath);
+
+		_gradleCacheIndex.save(
+			_dependencyCacheDirPath.resolve("gradle-cache.index"));
+
+		metricsRegistry.recordPhase("indexSave", startTime);
+
+		metricsRegistry.addCount(
+			"internedDependencies", DependencyPool.getDependencyCount());
+		metricsRegistry.addCount(
+			"internedPaths", DependencyPool.getPathCount());
+
+		metricsRegistry.writeReport(projectPath.resolve("metrics.json"));
+
+		System.out.println(metricsRegistry.getSummary());
+
+		return modulePaths;
 	}
 
-	private Map<Path, List<Module>> _createModuleGroups(
-		List<Module> modules, int groupDepth, List<String> groupStopWords) {
+	/**
+	 * Stops the Gradle daemon unless another portal is still resolving
+	 * through it, in which case the portal that finishes last stops it.
+	 */
+	private void _stopGradleDaemon(
+			Path portalPath, boolean displayGradleProcessOutput)
+		throws Exception {
 
-		Map<Path, List<Module>> moduleGroups = new HashMap<>();
+		Lock writeLock = _gradleDaemonReadWriteLock.writeLock();
 
-		for (Module module : modules) {
-			Path groupPath = module.getModulePath();
+		if (!writeLock.tryLock()) {
+			return;
+		}
 
-			for (int i = 1; i < groupDepth; i++) {
-				if (groupStopWords.contains(
-						String.valueOf(
-							groupPath.getName(groupPath.getNameCount() - 2)))) {
+		try {
+			GradleUtil.stopGradleDaemon(portalPath, displayGradleProcessOutput);
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
 
-					break;
-				}
+	/**
+	 * Generates the projects of the changed modules on the fork join pool as
+	 * soon as their dependencies are known, so that modules whose
+	 * dependencies are cached or resolved offline, and modules whose Gradle
+	 * dependency record has already arrived, are generated while Gradle is
+	 * still resolving the others.
+	 */
+	private class ModuleGenerator {
+
+		public List<Module> getModules(List<Path> modulePaths)
+			throws Exception {
 
-				groupPath = groupPath.getParent();
+			List<Future<Module>> futures = new ArrayList<>(
+				modulePaths.size());
+
+			for (Path modulePath : modulePaths) {
+				futures.add(_futures.get(modulePath));
 			}
 
-			List<Module> moduleGroup = moduleGroups.get(groupPath);
+			return ExecutorUtil.getAll(futures);
+		}
 
-			if (moduleGroup == null) {
-				moduleGroup = new ArrayList<>();
+		public void submit(
+			final Path modulePath, final Properties dependencyProperties,
+			final boolean resolved) {
 
-				moduleGroups.put(groupPath, moduleGroup);
-			}
+			Future<Module> future = _forkJoinPool.submit(
+				new Callable<Module>() {
+
+					@Override
+					public Module call() throws Exception {
+						return _createModule(
+							modulePath, dependencyProperties, resolved);
+					}
 
-			moduleGroup.add(module);
+				});
+
+			_futures.put(modulePath, future);
 		}
 
-		return moduleGroups;
-	}
+		private ModuleGenerator(
+			Path projectPath, Path portalPath,
+			DependencyCache dependencyCache,
+			Map<Path, Set<Dependency>> moduleDependenciesMap,
+			Map<Path, ModuleProbe> moduleProbes, Set<String> symbolicNames,
+			Set<Dependency> portalLibJars,
+			Properties portalModuleDependencyProperties,
+			MetricsRegistry metricsRegistry) {
+
+			_projectPath = projectPath;
+			_portalPath = portalPath;
+			_dependencyCache = dependencyCache;
+			_moduleDependenciesMap = moduleDependenciesMap;
+			_moduleProbes = moduleProbes;
+			_symbolicNames = symbolicNames;
+			_portalLibJars = portalLibJars;
+			_portalModuleDependencyProperties =
+				portalModuleDependencyProperties;
+			_metricsRegistry = metricsRegistry;
+		}
 
-	private void _loadExistingProjects(
-			Path projectModulesPath, Map<Path, Module> modules)
-		throws IOException {
+		private Module _createModule(
+				Path modulePath, Properties dependencyProperties,
+				boolean resolved)
+			throws Exception {
 
-		if (Files.exists(projectModulesPath)) {
-			for (Path path : Files.newDirectoryStream(projectModulesPath)) {
-				Module module = Module.load(path);
+			long startTime = System.nanoTime();
 
-				if (module != null) {
-					modules.put(module.getModulePath(), module);
-				}
+			String moduleName = String.valueOf(
+				_portalPath.relativize(modulePath));
+
+			if (resolved) {
+				_dependencyCache.store(modulePath, dependencyProperties);
+			}
+
+			Set<Dependency> jarDependencies = null;
+
+			if (dependencyProperties != null) {
+				jarDependencies = GradleUtil.getJarDependencies(
+					dependencyProperties, _portalPath, _symbolicNames,
+					_gradleCacheIndex);
+
+				_metricsRegistry.recordModuleTime(
+					"jarParsing", moduleName, System.nanoTime() - startTime);
+			}
+
+			Module module = Module.createModule(
+				_projectPath.resolve("modules"), modulePath,
+				_moduleDependenciesMap.get(modulePath), jarDependencies,
+				_portalModuleDependencyProperties, null,
+				_moduleProbes.remove(modulePath));
+
+			if (_exportModuleInfo) {
+				module.exportModuleInfo();
 			}
+
+			CreateModule.createModule(
+				module, _projectPath, _portalLibJars, _portalPath);
+
+			_metricsRegistry.recordModuleTime(
+				"moduleGeneration", moduleName, System.nanoTime() - startTime);
+
+			return module;
 		}
+
+		private final DependencyCache _dependencyCache;
+		private final Map<Path, Future<Module>> _futures =
+			new ConcurrentHashMap<>();
+		private final MetricsRegistry _metricsRegistry;
+		private final Map<Path, Set<Dependency>> _moduleDependenciesMap;
+		private final Map<Path, ModuleProbe> _moduleProbes;
+		private final Set<Dependency> _portalLibJars;
+		private final Properties _portalModuleDependencyProperties;
+		private final Path _portalPath;
+		private final Path _projectPath;
+		private final Set<String> _symbolicNames;
+
 	}
 
+	private final Path _dependencyCacheDirPath;
+	private final boolean _exportModuleInfo;
+	private final FileReaper _fileReaper;
+	private final ForkJoinPool _forkJoinPool;
+	private final GradleCacheIndex _gradleCacheIndex;
+	private final ReadWriteLock _gradleDaemonReadWriteLock =
+		new ReentrantReadWriteLock();
+	private final boolean _linkGradleCache;
+	private final boolean _offlineResolution;
+
 }
\ No newline at end of file
@@ -0,0 +1,228 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Snapshot of the portal directory tree from the previous scan. A directory
+ * whose modification time is unchanged still has the same entries, so its
+ * child directories and module root flag can be reused without listing it
+ * again.
+ *
+ * @author Tom Wang
+ */
+public class ScanIndex {
+
+	public static ScanIndex load(Path scanIndexPath, String ignoredDirs) {
+		ScanIndex scanIndex = new ScanIndex(ignoredDirs);
+
+		if (Files.notExists(scanIndexPath)) {
+			return scanIndex;
+		}
+
+		try (DataInputStream dataInputStream = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(scanIndexPath)))) {
+
+			if ((dataInputStream.readInt() != _MAGIC) ||
+				!ignoredDirs.equals(dataInputStream.readUTF())) {
+
+				return scanIndex;
+			}
+
+			int size = dataInputStream.readInt();
+
+			for (int i = 0; i < size; i++) {
+				Path path = Paths.get(dataInputStream.readUTF());
+				long lastModifiedTime = dataInputStream.readLong();
+
+				if (dataInputStream.readBoolean()) {
+					String symbolicName = null;
+
+					if (dataInputStream.readBoolean()) {
+						symbolicName = dataInputStream.readUTF();
+					}
+
+					scanIndex.put(
+						path,
+						new DirectoryEntry(
+							lastModifiedTime, symbolicName,
+							dataInputStream.readLong()));
+				}
+				else {
+					int childCount = dataInputStream.readInt();
+
+					List<String> childDirNames = new ArrayList<>(childCount);
+
+					for (int j = 0; j < childCount; j++) {
+						childDirNames.add(dataInputStream.readUTF());
+					}
+
+					scanIndex.put(
+						path,
+						new DirectoryEntry(lastModifiedTime, childDirNames));
+				}
+			}
+		}
+		catch (Exception e) {
+			return new ScanIndex(ignoredDirs);
+		}
+
+		return scanIndex;
+	}
+
+	public ScanIndex(String ignoredDirs) {
+		_ignoredDirs = ignoredDirs;
+	}
+
+	public DirectoryEntry get(Path path) {
+		return _directoryEntries.get(path);
+	}
+
+	public void put(Path path, DirectoryEntry directoryEntry) {
+		_directoryEntries.put(path, directoryEntry);
+	}
+
+	public void save(Path scanIndexPath) throws IOException {
+		Files.createDirectories(scanIndexPath.getParent());
+
+		Path tempScanIndexPath = scanIndexPath.resolveSibling(
+			scanIndexPath.getFileName() + ".tmp");
+
+		try (DataOutputStream dataOutputStream = new DataOutputStream(
+				new BufferedOutputStream(
+					Files.newOutputStream(tempScanIndexPath)))) {
+
+			dataOutputStream.writeInt(_MAGIC);
+			dataOutputStream.writeUTF(_ignoredDirs);
+			dataOutputStream.writeInt(_directoryEntries.size());
+
+			for (Map.Entry<Path, DirectoryEntry> entry :
+					_directoryEntries.entrySet()) {
+
+				DirectoryEntry directoryEntry = entry.getValue();
+
+				dataOutputStream.writeUTF(String.valueOf(entry.getKey()));
+				dataOutputStream.writeLong(directoryEntry._lastModifiedTime);
+				dataOutputStream.writeBoolean(directoryEntry._moduleRoot);
+
+				if (directoryEntry._moduleRoot) {
+					String symbolicName = directoryEntry._symbolicName;
+
+					dataOutputStream.writeBoolean(symbolicName != null);
+
+					if (symbolicName != null) {
+						dataOutputStream.writeUTF(symbolicName);
+					}
+
+					dataOutputStream.writeLong(
+						directoryEntry._bndLastModifiedTime);
+				}
+				else {
+					dataOutputStream.writeInt(
+						directoryEntry._childDirNames.size());
+
+					for (String childDirName : directoryEntry._childDirNames) {
+						dataOutputStream.writeUTF(childDirName);
+					}
+				}
+			}
+		}
+
+		Files.move(
+			tempScanIndexPath, scanIndexPath,
+			StandardCopyOption.ATOMIC_MOVE,
+			StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	public int size() {
+		return _directoryEntries.size();
+	}
+
+	public static class DirectoryEntry {
+
+		public DirectoryEntry(
+			long lastModifiedTime, List<String> childDirNames) {
+
+			_lastModifiedTime = lastModifiedTime;
+			_childDirNames = childDirNames;
+
+			_bndLastModifiedTime = -1;
+			_moduleRoot = false;
+			_symbolicName = null;
+		}
+
+		public DirectoryEntry(
+			long lastModifiedTime, String symbolicName,
+			long bndLastModifiedTime) {
+
+			_lastModifiedTime = lastModifiedTime;
+			_symbolicName = symbolicName;
+			_bndLastModifiedTime = bndLastModifiedTime;
+
+			_childDirNames = Collections.emptyList();
+			_moduleRoot = true;
+		}
+
+		public long getBndLastModifiedTime() {
+			return _bndLastModifiedTime;
+		}
+
+		public List<String> getChildDirNames() {
+			return _childDirNames;
+		}
+
+		public long getLastModifiedTime() {
+			return _lastModifiedTime;
+		}
+
+		public String getSymbolicName() {
+			return _symbolicName;
+		}
+
+		public boolean isModuleRoot() {
+			return _moduleRoot;
+		}
+
+		private final long _bndLastModifiedTime;
+		private final List<String> _childDirNames;
+		private final long _lastModifiedTime;
+		private final boolean _moduleRoot;
+		private final String _symbolicName;
+
+	}
+
+	private static final int _MAGIC = 0x4E425331;
+
+	private final Map<Path, DirectoryEntry> _directoryEntries =
+		new ConcurrentHashMap<>();
+	private final String _ignoredDirs;
+
+}
\ No newline at end of file
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject;
+
+import com.liferay.netbeansproject.util.StringUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Signatures of the inputs that the group projects and umbrellas were
+ * generated from in the previous run. A project whose signature is unchanged
+ * and whose member modules were not regenerated does not need to be rendered
+ * again.
+ *
+ * @author Tom Wang
+ */
+public class SignatureIndex {
+
+	public static String getSignature(Iterable<?>... valuesArray) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+
+			for (Iterable<?> values : valuesArray) {
+				for (Object value : values) {
+					messageDigest.update(
+						String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+					messageDigest.update((byte)'\n');
+				}
+
+				messageDigest.update((byte)0);
+			}
+
+			return StringUtil.bytesToHexString(messageDigest.digest());
+		}
+		catch (NoSuchAlgorithmException nsae) {
+			throw new Error(nsae);
+		}
+	}
+
+	public static SignatureIndex load(Path signatureIndexPath) {
+		SignatureIndex signatureIndex = new SignatureIndex();
+
+		if (Files.notExists(signatureIndexPath)) {
+			return signatureIndex;
+		}
+
+		try (DataInputStream dataInputStream = new DataInputStream(
+				new BufferedInputStream(
+					Files.newInputStream(signatureIndexPath)))) {
+
+			if (dataInputStream.readInt() != _MAGIC) {
+				return signatureIndex;
+			}
+
+			int size = dataInputStream.readInt();
+
+			for (int i = 0; i < size; i++) {
+				signatureIndex.put(
+					dataInputStream.readUTF(), dataInputStream.readUTF());
+			}
+		}
+		catch (Exception e) {
+			return new SignatureIndex();
+		}
+
+		return signatureIndex;
+	}
+
+	public String get(String projectName) {
+		return _signatures.get(projectName);
+	}
+
+	public void put(String projectName, String signature) {
+		_signatures.put(projectName, signature);
+	}
+
+	public void save(Path signatureIndexPath) throws IOException {
+		Files.createDirectories(signatureIndexPath.getParent());
+
+		Path tempSignatureIndexPath = signatureIndexPath.resolveSibling(
+			signatureIndexPath.getFileName() + ".tmp");
+
+		try (DataOutputStream dataOutputStream = new DataOutputStream(
+				new BufferedOutputStream(
+					Files.newOutputStream(tempSignatureIndexPath)))) {
+
+			dataOutputStream.writeInt(_MAGIC);
+			dataOutputStream.writeInt(_signatures.size());
+
+			for (Map.Entry<String, String> entry : _signatures.entrySet()) {
+				dataOutputStream.writeUTF(entry.getKey());
+				dataOutputStream.writeUTF(entry.getValue());
+			}
+		}
+
+		Files.move(
+			tempSignatureIndexPath, signatureIndexPath,
+			StandardCopyOption.ATOMIC_MOVE,
+			StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static final int _MAGIC = 0x4E424731;
+
+	private final Map<String, String> _signatures = new ConcurrentHashMap<>();
+
+}
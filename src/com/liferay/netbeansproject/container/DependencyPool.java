@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.container;
+
+import com.liferay.netbeansproject.util.HashUtil;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns dependencies and the paths they point to. Most jars in the Gradle
+ * cache are used by many modules of every portal, so sharing one instance per
+ * jar keeps the module graph small no matter how many modules reference it.
+ * Scans hold the pool between {@link #acquire()} and {@link #release()}, and
+ * the pool is cleared once the last running scan releases it, so watch mode
+ * does not keep every jar seen since startup.
+ *
+ * @author Tom Wang
+ */
+public class DependencyPool {
+
+	public static synchronized void acquire() {
+		_references++;
+	}
+
+	public static Dependency getDependency(
+		Path path, Path sourcePath, boolean test) {
+
+		DependencyKey dependencyKey = new DependencyKey(
+			getPath(path), getPath(sourcePath), test);
+
+		Dependency dependency = _dependencies.get(dependencyKey);
+
+		if (dependency == null) {
+			dependency = new Dependency(
+				dependencyKey._path, dependencyKey._sourcePath, test);
+
+			Dependency previousDependency = _dependencies.putIfAbsent(
+				dependencyKey, dependency);
+
+			if (previousDependency != null) {
+				dependency = previousDependency;
+			}
+		}
+
+		return dependency;
+	}
+
+	public static int getDependencyCount() {
+		return _dependencies.size();
+	}
+
+	public static Path getPath(Path path) {
+		if (path == null) {
+			return null;
+		}
+
+		Path previousPath = _paths.putIfAbsent(path, path);
+
+		if (previousPath != null) {
+			return previousPath;
+		}
+
+		return path;
+	}
+
+	public static Path getPath(String path) {
+		if (path == null) {
+			return null;
+		}
+
+		return getPath(Paths.get(path));
+	}
+
+	public static int getPathCount() {
+		return _paths.size();
+	}
+
+	public static synchronized void release() {
+		if (--_references == 0) {
+			_dependencies.clear();
+			_paths.clear();
+		}
+	}
+
+	private static class DependencyKey {
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof DependencyKey)) {
+				return false;
+			}
+
+			DependencyKey dependencyKey = (DependencyKey)obj;
+
+			if (Objects.equals(_path, dependencyKey._path) &&
+				Objects.equals(_sourcePath, dependencyKey._sourcePath) &&
+				(_test == dependencyKey._test)) {
+
+				return true;
+			}
+
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			int hashCode = HashUtil.hash(0, _path);
+
+			hashCode = HashUtil.hash(hashCode, _sourcePath);
+			hashCode = HashUtil.hash(hashCode, _test);
+
+			return hashCode;
+		}
+
+		private DependencyKey(Path path, Path sourcePath, boolean test) {
+			_path = path;
+			_sourcePath = sourcePath;
+			_test = test;
+		}
+
+		private final Path _path;
+		private final Path _sourcePath;
+		private final boolean _test;
+
+	}
+
+	private static final Map<DependencyKey, Dependency> _dependencies =
+		new ConcurrentHashMap<>();
+	private static final Map<Path, Path> _paths = new ConcurrentHashMap<>();
+	private static int _references;
+
+}
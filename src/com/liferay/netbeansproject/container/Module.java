@@ -21,20 +21,20 @@ import com.liferay.netbeansproject.util.StringUtil;
 import java.io.IOException;
 import java.io.Writer;
 
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * @author Tom Wang
@@ -47,38 +47,60 @@ public class Module implements Comparable<Module> {
 			Properties portalModuleDependencyProperties)
 		throws IOException {
 
-		if (jarDependencies == null) {
-			jarDependencies = new HashSet<>();
-		}
+		return createModule(
+			projectPath, modulePath, moduleDependencies, jarDependencies,
+			portalModuleDependencyProperties, null);
+	}
+
+	public static Module createModule(
+			Path projectPath, Path modulePath,
+			Set<Dependency> moduleDependencies, Set<Dependency> jarDependencies,
+			Properties portalModuleDependencyProperties, Module previousModule)
+		throws IOException {
 
-		Path moduleLibPath = modulePath.resolve("lib");
+		return createModule(
+			projectPath, modulePath, moduleDependencies, jarDependencies,
+			portalModuleDependencyProperties, previousModule, null);
+	}
 
-		if (Files.exists(moduleLibPath)) {
-			try (DirectoryStream<Path> directoryStream =
-					Files.newDirectoryStream(moduleLibPath, "*.jar")) {
+	/**
+	 * Creates the module from the module probe, probing the module when no
+	 * probe is given. The module is fingerprinted by its build.gradle, bnd.bnd
+	 * and lib jars. When the size and modification time of every one of these
+	 * files match the previous module, its checksum is reused and no file is
+	 * read.
+	 */
+	public static Module createModule(
+			Path projectPath, Path modulePath,
+			Set<Dependency> moduleDependencies, Set<Dependency> jarDependencies,
+			Properties portalModuleDependencyProperties, Module previousModule,
+			ModuleProbe moduleProbe)
+		throws IOException {
 
-				for (Path jarPath : directoryStream) {
-					jarDependencies.add(new Dependency(jarPath, null, false));
-				}
-			}
+		if (moduleProbe == null) {
+			moduleProbe = ModuleProbe.probe(modulePath);
 		}
 
-		String checksum = null;
+		if (jarDependencies == null) {
+			jarDependencies = new HashSet<>();
+		}
 
-		Path gradleFilePath = modulePath.resolve("build.gradle");
+		for (Path jarPath : moduleProbe.getLibJarPaths()) {
+			jarDependencies.add(
+				DependencyPool.getDependency(jarPath, null, false));
+		}
 
-		if (Files.exists(gradleFilePath)) {
-			try {
-				MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+		String statSignature = moduleProbe.getStatSignature();
 
-				byte[] hash = messageDigest.digest(
-					Files.readAllBytes(gradleFilePath));
+		String checksum = null;
 
-				checksum = StringUtil.bytesToHexString(hash);
-			}
-			catch (NoSuchAlgorithmException nsae) {
-				throw new Error(nsae);
-			}
+		if ((previousModule != null) &&
+			statSignature.equals(previousModule._statSignature)) {
+
+			checksum = previousModule._checksum;
+		}
+		else {
+			checksum = moduleProbe.getChecksum();
 		}
 
 		Path moduleName = modulePath.getFileName();
@@ -87,23 +109,16 @@ public class Module implements Comparable<Module> {
 			projectPath = projectPath.resolve(moduleName);
 		}
 
-		Module module = new Module(
-			projectPath, modulePath, _resolveSourcePath(modulePath),
-			_resolveResourcePath(modulePath, "main"),
-			_resolveTestPath(modulePath, true),
-			_resolveResourcePath(modulePath, "test"),
-			_resolveTestPath(modulePath, false),
-			_resolveResourcePath(modulePath, "testIntegration"),
-			moduleDependencies, jarDependencies,
+		return new Module(
+			projectPath, modulePath, moduleProbe.getSourcePath(),
+			moduleProbe.getSourceResourcePath(), moduleProbe.getTestUnitPath(),
+			moduleProbe.getTestUnitResourcePath(),
+			moduleProbe.getTestIntegrationPath(),
+			moduleProbe.getTestIntegrationResourcePath(), moduleDependencies,
+			jarDependencies,
 			_resolvePortalModuleDependencies(
 				portalModuleDependencyProperties, moduleName.toString()),
-			checksum);
-
-		if (projectPath != null) {
-			module._save();
-		}
-
-		return module;
+			checksum, statSignature);
 	}
 
 	public static Module load(Path projectPath) throws IOException {
@@ -130,7 +145,8 @@ public class Module implements Comparable<Module> {
 					StringUtil.split(
 						properties.getProperty("portal.module.dependencies"),
 						','))),
-			properties.getProperty("checksum"));
+			properties.getProperty("checksum"),
+			properties.getProperty("stat.signature"));
 	}
 
 	@Override
@@ -162,6 +178,8 @@ public class Module implements Comparable<Module> {
 			Objects.equals(
 				_testIntegrationResourcePath,
 				module._testIntegrationResourcePath) &&
+			Objects.equals(
+				_portalModuleDependencies, module._portalModuleDependencies) &&
 			Objects.equals(_checksum, module._checksum)) {
 
 			return true;
@@ -170,6 +188,53 @@ public class Module implements Comparable<Module> {
 		return false;
 	}
 
+	/**
+	 * Writes the module to module-info.properties in its project directory.
+	 * Regular runs read modules back from {@link ModuleIndex}, this export is
+	 * only kept for tools that read the properties files.
+	 */
+	public void exportModuleInfo() throws IOException {
+		Properties properties = new Properties();
+
+		_putProperty(properties, "module.path", _modulePath);
+		_putProperty(properties, "source.path", _sourcePath);
+		_putProperty(properties, "source.resource.path", _sourceResourcePath);
+		_putProperty(properties, "test.unit.path", _testUnitPath);
+		_putProperty(
+			properties, "test.unit.resource.path", _testUnitResourcePath);
+		_putProperty(properties, "test.integration.path", _testIntegrationPath);
+		_putProperty(
+			properties, "test.integration.resource.path",
+			_testIntegrationResourcePath);
+
+		_putProperty(properties, "checksum", _checksum);
+		_putProperty(properties, "stat.signature", _statSignature);
+
+		if (!_jarDependencies.isEmpty()) {
+			_putProperty(
+				properties, "jar.dependencies",
+				_createDependencyString(_jarDependencies));
+		}
+
+		if (!_moduleDependencies.isEmpty()) {
+			_putProperty(
+				properties, "module.dependencies",
+				_createDependencyString(_moduleDependencies));
+		}
+
+		_putProperty(
+			properties, "portal.module.dependencies",
+			StringUtil.merge(_portalModuleDependencies, ','));
+
+		Files.createDirectories(_projectPath);
+
+		try (Writer writer = Files.newBufferedWriter(
+				_projectPath.resolve("module-info.properties"))) {
+
+			properties.store(writer, null);
+		}
+	}
+
 	public String getChecksum() {
 		return _checksum;
 	}
@@ -204,6 +269,10 @@ public class Module implements Comparable<Module> {
 		return _sourceResourcePath;
 	}
 
+	public String getStatSignature() {
+		return _statSignature;
+	}
+
 	public Path getTestIntegrationPath() {
 		return _testIntegrationPath;
 	}
@@ -230,6 +299,7 @@ public class Module implements Comparable<Module> {
 		hashCode = HashUtil.hash(hashCode, _testUnitResourcePath);
 		hashCode = HashUtil.hash(hashCode, _testIntegrationPath);
 		hashCode = HashUtil.hash(hashCode, _testIntegrationResourcePath);
+		hashCode = HashUtil.hash(hashCode, _portalModuleDependencies);
 		hashCode = HashUtil.hash(hashCode, _checksum);
 
 		return hashCode;
@@ -266,6 +336,24 @@ public class Module implements Comparable<Module> {
 		return sb.toString();
 	}
 
+	/**
+	 * Returns a copy of the module with the stat signature of its current
+	 * files, so that the next run can reuse the checksum after a change that
+	 * only touched modification times.
+	 */
+	public Module withStatSignature(String statSignature) {
+		if (statSignature.equals(_statSignature)) {
+			return this;
+		}
+
+		return new Module(
+			_projectPath, _modulePath, _sourcePath, _sourceResourcePath,
+			_testUnitPath, _testUnitResourcePath, _testIntegrationPath,
+			_testIntegrationResourcePath, _moduleDependencies,
+			_jarDependencies, _portalModuleDependencies, _checksum,
+			statSignature);
+	}
+
 	private static String _createDependencyString(
 		Set<Dependency> dependencies) {
 
@@ -298,12 +386,12 @@ public class Module implements Comparable<Module> {
 			Path sourcePath = null;
 
 			if (!dependencySplit[1].equals("null")) {
-				sourcePath = Paths.get(dependencySplit[1]);
+				sourcePath = DependencyPool.getPath(dependencySplit[1]);
 			}
 
 			dependencyList.add(
-				new Dependency(
-					Paths.get(dependencySplit[0]), sourcePath,
+				DependencyPool.getDependency(
+					DependencyPool.getPath(dependencySplit[0]), sourcePath,
 					Boolean.valueOf(dependencySplit[1])));
 		}
 
@@ -342,78 +430,25 @@ public class Module implements Comparable<Module> {
 		return new HashSet(Arrays.asList(StringUtil.split(dependencies, ',')));
 	}
 
-	private static Path _resolveResourcePath(Path modulePath, String type) {
-		Path resolvedResourcePath = modulePath.resolve(
-			Paths.get("src", type, "resources"));
-
-		if (Files.exists(resolvedResourcePath)) {
-			return resolvedResourcePath;
-		}
-
-		return null;
-	}
-
-	private static Path _resolveSourcePath(Path modulePath) {
-		Path sourcePath = modulePath.resolve(
-			Paths.get("docroot", "WEB-INF", "src"));
-
-		if (Files.exists(sourcePath)) {
-			return sourcePath;
-		}
-
-		sourcePath = modulePath.resolve(Paths.get("src", "main", "java"));
-
-		if (Files.exists(sourcePath)) {
-			return sourcePath;
-		}
-
-		sourcePath = modulePath.resolve("src");
-
-		if (Files.exists(sourcePath.resolve("main")) ||
-			Files.exists(sourcePath.resolve("test")) ||
-			Files.exists(sourcePath.resolve("testIntegration"))) {
-
-			return null;
-		}
-
-		return sourcePath;
-	}
-
-	private static Path _resolveTestPath(Path modulePath, boolean unit) {
-		Path testPath = null;
-
-		if (unit) {
-			testPath = modulePath.resolve(Paths.get("src", "test", "java"));
-		}
-		else {
-			testPath = modulePath.resolve(
-				Paths.get("src", "testIntegration", "java"));
+	private static Set<Dependency> _sort(Set<Dependency> dependencies) {
+		if (dependencies == null) {
+			return Collections.emptySet();
 		}
 
-		if (Files.exists(testPath)) {
-			return testPath;
-		}
+		List<Dependency> dependencyList = new ArrayList<>(dependencies);
 
-		if (unit) {
-			testPath = modulePath.resolve(Paths.get("test", "unit"));
-		}
-		else {
-			testPath = modulePath.resolve(Paths.get("test", "integration"));
-		}
+		Collections.sort(dependencyList);
 
-		if (Files.exists(testPath)) {
-			return testPath;
-		}
-
-		return null;
+		return new LinkedHashSet<>(dependencyList);
 	}
 
-	private Module(
+	Module(
 		Path projectPath, Path modulePath, Path sourcePath,
 		Path sourceResourcePath, Path testUnitPath, Path testUnitResourcePath,
 		Path testIntegrationPath, Path testIntegrationResourcePath,
 		Set<Dependency> moduleDependencies, Set<Dependency> jarDependencies,
-		Set<String> portalModuleDependencies, String checksum) {
+		Set<String> portalModuleDependencies, String checksum,
+		String statSignature) {
 
 		_projectPath = projectPath;
 		_modulePath = modulePath;
@@ -423,65 +458,11 @@ public class Module implements Comparable<Module> {
 		_testUnitResourcePath = testUnitResourcePath;
 		_testIntegrationPath = testIntegrationPath;
 		_testIntegrationResourcePath = testIntegrationResourcePath;
-		_moduleDependencies = moduleDependencies;
-		_jarDependencies = jarDependencies;
-		_portalModuleDependencies = portalModuleDependencies;
+		_moduleDependencies = _sort(moduleDependencies);
+		_jarDependencies = _sort(jarDependencies);
+		_portalModuleDependencies = new TreeSet<>(portalModuleDependencies);
 		_checksum = checksum;
-	}
-
-	private void _save() throws IOException {
-		Properties properties = new Properties();
-
-		_putProperty(properties, "module.path", _modulePath);
-		_putProperty(properties, "source.path", _sourcePath);
-		_putProperty(properties, "source.resource.path", _sourceResourcePath);
-		_putProperty(properties, "test.unit.path", _testUnitPath);
-		_putProperty(
-			properties, "test.unit.resource.path", _testUnitResourcePath);
-		_putProperty(properties, "test.integration.path", _testIntegrationPath);
-		_putProperty(
-			properties, "test.integration.resource.path",
-			_testIntegrationResourcePath);
-
-		Path gradleFilePath = _modulePath.resolve("build.gradle");
-
-		try {
-			if (Files.exists(gradleFilePath)) {
-				MessageDigest messageDigest = MessageDigest.getInstance("MD5");
-
-				byte[] hash = messageDigest.digest(
-					Files.readAllBytes(gradleFilePath));
-
-				properties.put("checksum", StringUtil.bytesToHexString(hash));
-			}
-		}
-		catch (NoSuchAlgorithmException nsae) {
-			throw new Error(nsae);
-		}
-
-		if (!_jarDependencies.isEmpty()) {
-			_putProperty(
-				properties, "jar.dependencies",
-				_createDependencyString(_jarDependencies));
-		}
-
-		if (!_moduleDependencies.isEmpty()) {
-			_putProperty(
-				properties, "module.dependencies",
-				_createDependencyString(_moduleDependencies));
-		}
-
-		_putProperty(
-			properties, "portal.module.dependencies",
-			StringUtil.merge(_portalModuleDependencies, ','));
-
-		Files.createDirectories(_projectPath);
-
-		try (Writer writer = Files.newBufferedWriter(
-				_projectPath.resolve("module-info.properties"))) {
-
-			properties.store(writer, null);
-		}
+		_statSignature = statSignature;
 	}
 
 	private final String _checksum;
@@ -492,6 +473,7 @@ public class Module implements Comparable<Module> {
 	private final Path _projectPath;
 	private final Path _sourcePath;
 	private final Path _sourceResourcePath;
+	private final String _statSignature;
 	private final Path _testIntegrationPath;
 	private final Path _testIntegrationResourcePath;
 	private final Path _testUnitPath;
@@ -0,0 +1,434 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.container;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Holds the dependencies between modules as a graph with dense integer ids,
+ * assigned in module name order, and one adjacency bit set per module. Edges
+ * come from the module dependencies and the portal module dependencies of
+ * each module. Dependencies on modules that are not part of the graph, such
+ * as excluded modules, become nodes without a module.
+ *
+ * <p>
+ * Strongly connected components are found once, with an iterative Tarjan
+ * search, and the transitive closure of every component is computed on first
+ * use in reverse topological order, so every closure is the union of already
+ * computed closures.
+ * </p>
+ *
+ * @author Tom Wang
+ */
+public class ModuleGraph {
+
+	public ModuleGraph(Collection<Module> modules) {
+		Set<String> names = new TreeSet<>();
+
+		for (Module module : modules) {
+			names.add(module.getModuleName());
+
+			for (Dependency dependency : module.getModuleDependencies()) {
+				names.add(String.valueOf(dependency.getName()));
+			}
+
+			names.addAll(module.getPortalModuleDependencies());
+		}
+
+		int size = names.size();
+
+		_names = names.toArray(new String[size]);
+
+		_ids = new HashMap<>(size * 4 / 3 + 1);
+
+		for (int i = 0; i < size; i++) {
+			_ids.put(_names[i], i);
+		}
+
+		_modules = new Module[size];
+		_adjacencies = new BitSet[size];
+		_compileModuleDependencyIds = new BitSet[size];
+		_moduleDependencyIds = new BitSet[size];
+		_compileDependencies = new Dependency[size];
+		_testDependencies = new Dependency[size];
+
+		for (int i = 0; i < size; i++) {
+			_adjacencies[i] = new BitSet();
+			_compileModuleDependencyIds[i] = new BitSet();
+			_moduleDependencyIds[i] = new BitSet();
+		}
+
+		List<Module> sortedModules = new ArrayList<>(modules);
+
+		sortedModules.sort(null);
+
+		for (Module module : sortedModules) {
+			int id = _ids.get(module.getModuleName());
+
+			_modules[id] = module;
+
+			for (Dependency dependency : module.getModuleDependencies()) {
+				int dependencyId = _ids.get(
+					String.valueOf(dependency.getName()));
+
+				_adjacencies[id].set(dependencyId);
+				_moduleDependencyIds[id].set(dependencyId);
+
+				if (dependency.isTest()) {
+					if (_testDependencies[dependencyId] == null) {
+						_testDependencies[dependencyId] = dependency;
+					}
+				}
+				else {
+					_compileModuleDependencyIds[id].set(dependencyId);
+
+					if (_compileDependencies[dependencyId] == null) {
+						_compileDependencies[dependencyId] = dependency;
+					}
+				}
+			}
+
+			for (String portalModuleDependency :
+					module.getPortalModuleDependencies()) {
+
+				_adjacencies[id].set(_ids.get(portalModuleDependency));
+			}
+		}
+
+		_componentIds = new int[size];
+
+		_findComponents();
+	}
+
+	/**
+	 * Returns the modules that are part of a dependency cycle, one set of
+	 * module names per strongly connected component.
+	 */
+	public List<Set<String>> getCycles() {
+		List<Set<String>> cycles = new ArrayList<>();
+
+		for (int i = 0; i < _componentMembers.length; i++) {
+			int[] members = _componentMembers[i];
+
+			if ((members.length > 1) ||
+				_adjacencies[members[0]].get(members[0])) {
+
+				cycles.add(_getNames(members));
+			}
+		}
+
+		return cycles;
+	}
+
+	/**
+	 * Returns the names of the modules that directly depend on the module.
+	 */
+	public Set<String> getDependents(String moduleName) {
+		Set<String> dependents = new TreeSet<>();
+
+		Integer id = _ids.get(moduleName);
+
+		if (id == null) {
+			return dependents;
+		}
+
+		for (int i = 0; i < _adjacencies.length; i++) {
+			if (_adjacencies[i].get(id)) {
+				dependents.add(_names[i]);
+			}
+		}
+
+		return dependents;
+	}
+
+	public Module getModule(String moduleName) {
+		Integer id = _ids.get(moduleName);
+
+		if (id == null) {
+			return null;
+		}
+
+		return _modules[id];
+	}
+
+	/**
+	 * Returns the union of the module dependencies of the modules, in module
+	 * name order, with one dependency per module. A dependency is a test
+	 * dependency only when none of the modules depends on it outside of its
+	 * tests.
+	 */
+	public Set<Dependency> getModuleDependencies(Collection<Module> modules) {
+		BitSet dependencyIds = new BitSet(_names.length);
+		BitSet compileDependencyIds = new BitSet(_names.length);
+
+		for (Module module : modules) {
+			Integer id = _ids.get(module.getModuleName());
+
+			if (id == null) {
+				continue;
+			}
+
+			dependencyIds.or(_moduleDependencyIds[id]);
+			compileDependencyIds.or(_compileModuleDependencyIds[id]);
+		}
+
+		Set<Dependency> moduleDependencies = new LinkedHashSet<>();
+
+		for (int id = dependencyIds.nextSetBit(0); id >= 0;
+			 id = dependencyIds.nextSetBit(id + 1)) {
+
+			if (compileDependencyIds.get(id)) {
+				moduleDependencies.add(_compileDependencies[id]);
+			}
+			else {
+				moduleDependencies.add(_testDependencies[id]);
+			}
+		}
+
+		return moduleDependencies;
+	}
+
+	public int getSize() {
+		return _names.length;
+	}
+
+	/**
+	 * Returns the names of every module the module depends on, directly or
+	 * through other modules.
+	 */
+	public Set<String> getTransitiveDependencies(String moduleName) {
+		Integer id = _ids.get(moduleName);
+
+		if (id == null) {
+			return new TreeSet<>();
+		}
+
+		BitSet[] closures = _getClosures();
+
+		return _getNames(closures[_componentIds[id]]);
+	}
+
+	/**
+	 * Returns the names of every module that depends on the module, directly
+	 * or through other modules, which are the modules affected by a change to
+	 * it.
+	 */
+	public Set<String> getTransitiveDependents(String moduleName) {
+		Set<String> dependents = new TreeSet<>();
+
+		Integer id = _ids.get(moduleName);
+
+		if (id == null) {
+			return dependents;
+		}
+
+		BitSet[] closures = _getClosures();
+
+		for (int i = 0; i < _names.length; i++) {
+			if (closures[_componentIds[i]].get(id)) {
+				dependents.add(_names[i]);
+			}
+		}
+
+		return dependents;
+	}
+
+	/**
+	 * Numbers the strongly connected components with an iterative version
+	 * of Tarjan's algorithm. Components are completed in reverse topological
+	 * order, so a component only depends on components with lower numbers.
+	 */
+	private void _findComponents() {
+		int size = _names.length;
+
+		int[] indexes = new int[size];
+		int[] lowLinks = new int[size];
+		boolean[] onStack = new boolean[size];
+
+		int[] stack = new int[size];
+		int stackSize = 0;
+
+		int[] callStack = new int[size];
+		int[] edgeCursors = new int[size];
+		int callStackSize = 0;
+
+		int index = 1;
+		int componentCount = 0;
+
+		for (int root = 0; root < size; root++) {
+			if (indexes[root] != 0) {
+				continue;
+			}
+
+			indexes[root] = lowLinks[root] = index++;
+			stack[stackSize++] = root;
+			onStack[root] = true;
+			callStack[callStackSize] = root;
+			edgeCursors[callStackSize++] = 0;
+
+			while (callStackSize > 0) {
+				int node = callStack[callStackSize - 1];
+
+				int target = _adjacencies[node].nextSetBit(
+					edgeCursors[callStackSize - 1]);
+
+				if (target >= 0) {
+					edgeCursors[callStackSize - 1] = target + 1;
+
+					if (indexes[target] == 0) {
+						indexes[target] = lowLinks[target] = index++;
+						stack[stackSize++] = target;
+						onStack[target] = true;
+						callStack[callStackSize] = target;
+						edgeCursors[callStackSize++] = 0;
+					}
+					else if (onStack[target]) {
+						lowLinks[node] = Math.min(
+							lowLinks[node], indexes[target]);
+					}
+
+					continue;
+				}
+
+				callStackSize--;
+
+				if (callStackSize > 0) {
+					int parent = callStack[callStackSize - 1];
+
+					lowLinks[parent] = Math.min(
+						lowLinks[parent], lowLinks[node]);
+				}
+
+				if (lowLinks[node] != indexes[node]) {
+					continue;
+				}
+
+				int member = 0;
+
+				do {
+					member = stack[--stackSize];
+
+					onStack[member] = false;
+
+					_componentIds[member] = componentCount;
+				}
+				while (member != node);
+
+				componentCount++;
+			}
+		}
+
+		int[] componentSizes = new int[componentCount];
+
+		for (int componentId : _componentIds) {
+			componentSizes[componentId]++;
+		}
+
+		_componentMembers = new int[componentCount][];
+
+		for (int i = 0; i < componentCount; i++) {
+			_componentMembers[i] = new int[componentSizes[i]];
+
+			componentSizes[i] = 0;
+		}
+
+		for (int i = 0; i < size; i++) {
+			int componentId = _componentIds[i];
+
+			_componentMembers[componentId][componentSizes[componentId]++] = i;
+		}
+	}
+
+	private synchronized BitSet[] _getClosures() {
+		if (_closures != null) {
+			return _closures;
+		}
+
+		BitSet[] closures = new BitSet[_componentMembers.length];
+
+		for (int i = 0; i < _componentMembers.length; i++) {
+			BitSet closure = new BitSet(_names.length);
+
+			for (int member : _componentMembers[i]) {
+				BitSet adjacency = _adjacencies[member];
+
+				closure.or(adjacency);
+
+				for (int target = adjacency.nextSetBit(0); target >= 0;
+					 target = adjacency.nextSetBit(target + 1)) {
+
+					int componentId = _componentIds[target];
+
+					if (componentId != i) {
+						closure.or(closures[componentId]);
+					}
+				}
+			}
+
+			if (_componentMembers[i].length > 1) {
+				for (int member : _componentMembers[i]) {
+					closure.set(member);
+				}
+			}
+
+			closures[i] = closure;
+		}
+
+		_closures = closures;
+
+		return _closures;
+	}
+
+	private Set<String> _getNames(BitSet ids) {
+		Set<String> names = new TreeSet<>();
+
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+			names.add(_names[id]);
+		}
+
+		return names;
+	}
+
+	private Set<String> _getNames(int[] ids) {
+		Set<String> names = new TreeSet<>();
+
+		for (int id : ids) {
+			names.add(_names[id]);
+		}
+
+		return names;
+	}
+
+	private final BitSet[] _adjacencies;
+	private BitSet[] _closures;
+	private final Dependency[] _compileDependencies;
+	private final BitSet[] _compileModuleDependencyIds;
+	private final int[] _componentIds;
+	private int[][] _componentMembers;
+	private final Map<String, Integer> _ids;
+	private final BitSet[] _moduleDependencyIds;
+	private final Module[] _modules;
+	private final String[] _names;
+	private final Dependency[] _testDependencies;
+
+}
@@ -0,0 +1,372 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.container;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores every module of a portal in one file, replacing the per-module
+ * module-info.properties files. Strings, paths and dependencies are kept in
+ * shared tables and referenced by index, a path being its parent path index
+ * plus a file name, so the many jars under the same Gradle cache or portal
+ * lib directory share their prefix. The file is read into a heap buffer and
+ * parsed in one pass.
+ *
+ * @author Tom Wang
+ */
+public class ModuleIndex {
+
+	/**
+	 * Returns the modules in the index keyed by module path, or
+	 * <code>null</code> when the index is missing or unreadable.
+	 */
+	public static Map<Path, Module> load(
+		Path moduleIndexPath, Path projectModulesPath) {
+
+		if (Files.notExists(moduleIndexPath)) {
+			return null;
+		}
+
+		try {
+			ByteBuffer byteBuffer = ByteBuffer.wrap(
+				Files.readAllBytes(moduleIndexPath));
+
+			if (byteBuffer.getInt() != _MAGIC) {
+				System.out.println(
+					"Discarding " + moduleIndexPath +
+						" written in an unknown format");
+
+				return null;
+			}
+
+			String[] strings = new String[byteBuffer.getInt()];
+
+			for (int i = 0; i < strings.length; i++) {
+				byte[] bytes = new byte[byteBuffer.getInt()];
+
+				byteBuffer.get(bytes);
+
+				strings[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			Path[] paths = new Path[byteBuffer.getInt()];
+
+			for (int i = 0; i < paths.length; i++) {
+				int parentIndex = byteBuffer.getInt();
+
+				String name = strings[byteBuffer.getInt()];
+
+				if (parentIndex < 0) {
+					paths[i] = Paths.get(name);
+				}
+				else {
+					paths[i] = paths[parentIndex].resolve(name);
+				}
+			}
+
+			Dependency[] dependencies = new Dependency[byteBuffer.getInt()];
+
+			for (int i = 0; i < dependencies.length; i++) {
+				dependencies[i] = DependencyPool.getDependency(
+					paths[byteBuffer.getInt()],
+					_getPath(paths, byteBuffer.getInt()),
+					byteBuffer.getInt() != 0);
+			}
+
+			int moduleCount = byteBuffer.getInt();
+
+			Map<Path, Module> modules = new HashMap<>(moduleCount * 2);
+
+			for (int i = 0; i < moduleCount; i++) {
+				Path modulePath = paths[byteBuffer.getInt()];
+
+				Path sourcePath = _getPath(paths, byteBuffer.getInt());
+				Path sourceResourcePath = _getPath(paths, byteBuffer.getInt());
+				Path testUnitPath = _getPath(paths, byteBuffer.getInt());
+				Path testUnitResourcePath = _getPath(
+					paths, byteBuffer.getInt());
+				Path testIntegrationPath = _getPath(paths, byteBuffer.getInt());
+				Path testIntegrationResourcePath = _getPath(
+					paths, byteBuffer.getInt());
+
+				String checksum = _getString(strings, byteBuffer.getInt());
+				String statSignature = _getString(
+					strings, byteBuffer.getInt());
+
+				Set<Dependency> moduleDependencies = _getDependencies(
+					byteBuffer, dependencies);
+				Set<Dependency> jarDependencies = _getDependencies(
+					byteBuffer, dependencies);
+
+				int portalModuleDependencyCount = byteBuffer.getInt();
+
+				Set<String> portalModuleDependencies = new HashSet<>();
+
+				for (int j = 0; j < portalModuleDependencyCount; j++) {
+					portalModuleDependencies.add(strings[byteBuffer.getInt()]);
+				}
+
+				modules.put(
+					modulePath,
+					new Module(
+						projectModulesPath.resolve(modulePath.getFileName()),
+						modulePath, sourcePath, sourceResourcePath,
+						testUnitPath, testUnitResourcePath, testIntegrationPath,
+						testIntegrationResourcePath, moduleDependencies,
+						jarDependencies, portalModuleDependencies, checksum,
+						statSignature));
+			}
+
+			return modules;
+		}
+		catch (Exception e) {
+			System.out.println("Discarding " + moduleIndexPath + ": " + e);
+
+			return null;
+		}
+	}
+
+	public static void save(Path moduleIndexPath, Collection<Module> modules)
+		throws IOException {
+
+		ModuleIndex moduleIndex = new ModuleIndex();
+
+		List<int[]> moduleEntries = new ArrayList<>(modules.size());
+
+		for (Module module : modules) {
+			moduleEntries.add(moduleIndex._toEntry(module));
+		}
+
+		Files.createDirectories(moduleIndexPath.getParent());
+
+		Path tempModuleIndexPath = moduleIndexPath.resolveSibling(
+			moduleIndexPath.getFileName() + ".tmp");
+
+		try (DataOutputStream dataOutputStream = new DataOutputStream(
+				new BufferedOutputStream(
+					Files.newOutputStream(tempModuleIndexPath)))) {
+
+			dataOutputStream.writeInt(_MAGIC);
+
+			dataOutputStream.writeInt(moduleIndex._strings.size());
+
+			for (String string : moduleIndex._strings) {
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+
+				dataOutputStream.writeInt(bytes.length);
+				dataOutputStream.write(bytes);
+			}
+
+			_writeEntries(dataOutputStream, moduleIndex._pathEntries);
+			_writeEntries(dataOutputStream, moduleIndex._dependencyEntries);
+			_writeEntries(dataOutputStream, moduleEntries);
+		}
+
+		Files.move(
+			tempModuleIndexPath, moduleIndexPath,
+			StandardCopyOption.ATOMIC_MOVE,
+			StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static Set<Dependency> _getDependencies(
+		ByteBuffer byteBuffer, Dependency[] dependencies) {
+
+		int count = byteBuffer.getInt();
+
+		Set<Dependency> dependencySet = new HashSet<>(count * 2);
+
+		for (int i = 0; i < count; i++) {
+			dependencySet.add(dependencies[byteBuffer.getInt()]);
+		}
+
+		return dependencySet;
+	}
+
+	private static Path _getPath(Path[] paths, int index) {
+		if (index < 0) {
+			return null;
+		}
+
+		return paths[index];
+	}
+
+	private static String _getString(String[] strings, int index) {
+		if (index < 0) {
+			return null;
+		}
+
+		return strings[index];
+	}
+
+	private static void _writeEntries(
+			DataOutputStream dataOutputStream, List<int[]> entries)
+		throws IOException {
+
+		dataOutputStream.writeInt(entries.size());
+
+		for (int[] entry : entries) {
+			for (int value : entry) {
+				dataOutputStream.writeInt(value);
+			}
+		}
+	}
+
+	private ModuleIndex() {
+	}
+
+	private int _indexOf(Dependency dependency) {
+		List<Object> dependencyKey = Arrays.<Object>asList(
+			dependency.getPath(), dependency.getSourcePath(),
+			dependency.isTest());
+
+		Integer index = _dependencyIndexes.get(dependencyKey);
+
+		if (index == null) {
+			index = _dependencyEntries.size();
+
+			_dependencyEntries.add(
+				new int[] {
+					_indexOf(dependency.getPath()),
+					_indexOf(dependency.getSourcePath()),
+					dependency.isTest() ? 1 : 0
+				});
+
+			_dependencyIndexes.put(dependencyKey, index);
+		}
+
+		return index;
+	}
+
+	private int _indexOf(Path path) {
+		if (path == null) {
+			return -1;
+		}
+
+		Integer index = _pathIndexes.get(path);
+
+		if (index == null) {
+			int parentIndex = -1;
+			String name = null;
+
+			Path parentPath = path.getParent();
+
+			if ((parentPath == null) || (path.getFileName() == null)) {
+				name = path.toString();
+			}
+			else {
+				parentIndex = _indexOf(parentPath);
+				name = String.valueOf(path.getFileName());
+			}
+
+			index = _pathEntries.size();
+
+			_pathEntries.add(new int[] {parentIndex, _indexOf(name)});
+
+			_pathIndexes.put(path, index);
+		}
+
+		return index;
+	}
+
+	private int _indexOf(String string) {
+		if (string == null) {
+			return -1;
+		}
+
+		Integer index = _stringIndexes.get(string);
+
+		if (index == null) {
+			index = _strings.size();
+
+			_strings.add(string);
+
+			_stringIndexes.put(string, index);
+		}
+
+		return index;
+	}
+
+	private int[] _toEntry(Module module) {
+		Set<Dependency> moduleDependencies = module.getModuleDependencies();
+		Set<Dependency> jarDependencies = module.getJarDependencies();
+		Set<String> portalModuleDependencies =
+			module.getPortalModuleDependencies();
+
+		int[] entry = new int[
+			12 + moduleDependencies.size() + jarDependencies.size() +
+				portalModuleDependencies.size()];
+
+		int i = 0;
+
+		entry[i++] = _indexOf(module.getModulePath());
+		entry[i++] = _indexOf(module.getSourcePath());
+		entry[i++] = _indexOf(module.getSourceResourcePath());
+		entry[i++] = _indexOf(module.getTestUnitPath());
+		entry[i++] = _indexOf(module.getTestUnitResourcePath());
+		entry[i++] = _indexOf(module.getTestIntegrationPath());
+		entry[i++] = _indexOf(module.getTestIntegrationResourcePath());
+		entry[i++] = _indexOf(module.getChecksum());
+		entry[i++] = _indexOf(module.getStatSignature());
+
+		entry[i++] = moduleDependencies.size();
+
+		for (Dependency dependency : moduleDependencies) {
+			entry[i++] = _indexOf(dependency);
+		}
+
+		entry[i++] = jarDependencies.size();
+
+		for (Dependency dependency : jarDependencies) {
+			entry[i++] = _indexOf(dependency);
+		}
+
+		entry[i++] = portalModuleDependencies.size();
+
+		for (String portalModuleDependency : portalModuleDependencies) {
+			entry[i++] = _indexOf(portalModuleDependency);
+		}
+
+		return entry;
+	}
+
+	private static final int _MAGIC = 0x4E424D32;
+
+	private final List<int[]> _dependencyEntries = new ArrayList<>();
+	private final Map<List<Object>, Integer> _dependencyIndexes =
+		new HashMap<>();
+	private final List<int[]> _pathEntries = new ArrayList<>();
+	private final Map<Path, Integer> _pathIndexes = new HashMap<>();
+	private final Map<String, Integer> _stringIndexes = new HashMap<>();
+	private final List<String> _strings = new ArrayList<>();
+
+}
@@ -0,0 +1,320 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.container;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Describes the layout of a module on disk. The module directory and its
+ * src, src/main, src/test, src/testIntegration, test, docroot/WEB-INF and lib
+ * directories are each listed at most once, and the source, test and resource
+ * roots, the lib jars and the fingerprinted files are all derived from these
+ * listings instead of probing every candidate path. The checksum is computed
+ * on first use and kept, so one probe can be shared by every
+ * {@link Module#createModule} call for the module in a run.
+ *
+ * @author Tom Wang
+ */
+public class ModuleProbe {
+
+	public static ModuleProbe probe(Path modulePath) throws IOException {
+		return new ModuleProbe(modulePath);
+	}
+
+	/**
+	 * Returns the CRC32 of every fingerprinted file, streamed in fixed size
+	 * chunks, as a list of relative path and checksum pairs.
+	 */
+	public synchronized String getChecksum() throws IOException {
+		if (_checksum != null) {
+			return _checksum;
+		}
+
+		StringBuilder sb = new StringBuilder();
+
+		byte[] buffer = new byte[8192];
+
+		for (Path fingerprintPath : _fingerprintPaths) {
+			CRC32 crc32 = new CRC32();
+
+			try (InputStream inputStream = Files.newInputStream(
+					fingerprintPath)) {
+
+				int length = 0;
+
+				while ((length = inputStream.read(buffer)) != -1) {
+					crc32.update(buffer, 0, length);
+				}
+			}
+			catch (NoSuchFileException nsfe) {
+				continue;
+			}
+
+			sb.append(_modulePath.relativize(fingerprintPath));
+			sb.append('=');
+			sb.append(Long.toHexString(crc32.getValue()));
+			sb.append(',');
+		}
+
+		if (sb.length() > 0) {
+			sb.setLength(sb.length() - 1);
+		}
+
+		_checksum = sb.toString();
+
+		return _checksum;
+	}
+
+	public List<Path> getLibJarPaths() {
+		return _libJarPaths;
+	}
+
+	public Path getModulePath() {
+		return _modulePath;
+	}
+
+	public Path getSourcePath() {
+		return _sourcePath;
+	}
+
+	public Path getSourceResourcePath() {
+		return _sourceResourcePath;
+	}
+
+	public String getStatSignature() {
+		return _statSignature;
+	}
+
+	public Path getTestIntegrationPath() {
+		return _testIntegrationPath;
+	}
+
+	public Path getTestIntegrationResourcePath() {
+		return _testIntegrationResourcePath;
+	}
+
+	public Path getTestUnitPath() {
+		return _testUnitPath;
+	}
+
+	public Path getTestUnitResourcePath() {
+		return _testUnitResourcePath;
+	}
+
+	private static Set<String> _list(Path dirPath) throws IOException {
+		Set<String> fileNames = new HashSet<>();
+
+		try (DirectoryStream<Path> directoryStream =
+				Files.newDirectoryStream(dirPath)) {
+
+			for (Path path : directoryStream) {
+				fileNames.add(String.valueOf(path.getFileName()));
+			}
+		}
+		catch (NoSuchFileException | NotDirectoryException e) {
+		}
+
+		return fileNames;
+	}
+
+	private ModuleProbe(Path modulePath) throws IOException {
+		_modulePath = modulePath;
+
+		Set<String> moduleFileNames = _list(modulePath);
+
+		Set<String> srcFileNames = Collections.emptySet();
+
+		if (moduleFileNames.contains("src")) {
+			srcFileNames = _list(modulePath.resolve("src"));
+		}
+
+		Set<String> mainFileNames = _listSrc(srcFileNames, "main");
+		Set<String> testFileNames = _listSrc(srcFileNames, "test");
+		Set<String> testIntegrationFileNames = _listSrc(
+			srcFileNames, "testIntegration");
+
+		Set<String> classicTestFileNames = Collections.emptySet();
+
+		if (moduleFileNames.contains("test")) {
+			classicTestFileNames = _list(modulePath.resolve("test"));
+		}
+
+		Set<String> webInfFileNames = Collections.emptySet();
+
+		if (moduleFileNames.contains("docroot")) {
+			webInfFileNames = _list(
+				modulePath.resolve(Paths.get("docroot", "WEB-INF")));
+		}
+
+		if (webInfFileNames.contains("src")) {
+			_sourcePath = modulePath.resolve(
+				Paths.get("docroot", "WEB-INF", "src"));
+		}
+		else if (mainFileNames.contains("java")) {
+			_sourcePath = modulePath.resolve(Paths.get("src", "main", "java"));
+		}
+		else if (srcFileNames.contains("main") ||
+				 srcFileNames.contains("test") ||
+				 srcFileNames.contains("testIntegration")) {
+
+			_sourcePath = null;
+		}
+		else {
+			_sourcePath = modulePath.resolve("src");
+		}
+
+		_sourceResourcePath = _resolveSrcPath(
+			mainFileNames, "main", "resources");
+
+		Path testUnitPath = _resolveSrcPath(testFileNames, "test", "java");
+
+		if ((testUnitPath == null) && classicTestFileNames.contains("unit")) {
+			testUnitPath = modulePath.resolve(Paths.get("test", "unit"));
+		}
+
+		_testUnitPath = testUnitPath;
+
+		_testUnitResourcePath = _resolveSrcPath(
+			testFileNames, "test", "resources");
+
+		Path testIntegrationPath = _resolveSrcPath(
+			testIntegrationFileNames, "testIntegration", "java");
+
+		if ((testIntegrationPath == null) &&
+			classicTestFileNames.contains("integration")) {
+
+			testIntegrationPath = modulePath.resolve(
+				Paths.get("test", "integration"));
+		}
+
+		_testIntegrationPath = testIntegrationPath;
+
+		_testIntegrationResourcePath = _resolveSrcPath(
+			testIntegrationFileNames, "testIntegration", "resources");
+
+		List<Path> libJarPaths = new ArrayList<>();
+
+		if (moduleFileNames.contains("lib")) {
+			Path libPath = modulePath.resolve("lib");
+
+			for (String fileName : _list(libPath)) {
+				if (fileName.endsWith(".jar")) {
+					libJarPaths.add(libPath.resolve(fileName));
+				}
+			}
+
+			Collections.sort(libJarPaths);
+		}
+
+		_libJarPaths = Collections.unmodifiableList(libJarPaths);
+
+		List<Path> fingerprintPaths = new ArrayList<>();
+
+		if (moduleFileNames.contains("bnd.bnd")) {
+			fingerprintPaths.add(modulePath.resolve("bnd.bnd"));
+		}
+
+		if (moduleFileNames.contains("build.gradle")) {
+			fingerprintPaths.add(modulePath.resolve("build.gradle"));
+		}
+
+		fingerprintPaths.addAll(_libJarPaths);
+
+		_fingerprintPaths = fingerprintPaths;
+
+		_statSignature = _getStatSignature();
+	}
+
+	private String _getStatSignature() throws IOException {
+		StringBuilder sb = new StringBuilder();
+
+		for (Path fingerprintPath : _fingerprintPaths) {
+			BasicFileAttributes basicFileAttributes = null;
+
+			try {
+				basicFileAttributes = Files.readAttributes(
+					fingerprintPath, BasicFileAttributes.class);
+			}
+			catch (NoSuchFileException nsfe) {
+				continue;
+			}
+
+			FileTime fileTime = basicFileAttributes.lastModifiedTime();
+
+			sb.append(_modulePath.relativize(fingerprintPath));
+			sb.append(':');
+			sb.append(basicFileAttributes.size());
+			sb.append(':');
+			sb.append(fileTime.toMillis());
+			sb.append(',');
+		}
+
+		if (sb.length() > 0) {
+			sb.setLength(sb.length() - 1);
+		}
+
+		return sb.toString();
+	}
+
+	private Set<String> _listSrc(Set<String> srcFileNames, String type)
+		throws IOException {
+
+		if (!srcFileNames.contains(type)) {
+			return Collections.emptySet();
+		}
+
+		return _list(_modulePath.resolve(Paths.get("src", type)));
+	}
+
+	private Path _resolveSrcPath(
+		Set<String> typeFileNames, String type, String fileName) {
+
+		if (!typeFileNames.contains(fileName)) {
+			return null;
+		}
+
+		return _modulePath.resolve(Paths.get("src", type, fileName));
+	}
+
+	private String _checksum;
+	private final List<Path> _fingerprintPaths;
+	private final List<Path> _libJarPaths;
+	private final Path _modulePath;
+	private final Path _sourcePath;
+	private final Path _sourceResourcePath;
+	private final String _statSignature;
+	private final Path _testIntegrationPath;
+	private final Path _testIntegrationResourcePath;
+	private final Path _testUnitPath;
+	private final Path _testUnitResourcePath;
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @author Tom Wang
+ */
+@Category({"Liferay", "Project Builder"})
+@Description("A Gradle process from start to exit")
+@Label("Gradle Process")
+@Name("com.liferay.netbeansproject.GradleProcess")
+@StackTrace(false)
+public class GradleProcessEvent extends Event {
+
+	public void setCommand(String command) {
+		_command = command;
+	}
+
+	public void setExitCode(int exitCode) {
+		_exitCode = exitCode;
+	}
+
+	public void setPortal(String portal) {
+		_portal = portal;
+	}
+
+	public void setProjectCount(int projectCount) {
+		_projectCount = projectCount;
+	}
+
+	@Label("Command")
+	@Name("command")
+	private String _command;
+
+	@Label("Exit Code")
+	@Name("exitCode")
+	private int _exitCode;
+
+	@Label("Portal")
+	@Name("portal")
+	private String _portal;
+
+	@Description("Number of projects that printed their dependencies")
+	@Label("Project Count")
+	@Name("projectCount")
+	private int _projectCount;
+
+}
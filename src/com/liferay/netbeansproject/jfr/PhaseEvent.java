@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @author Tom Wang
+ */
+@Category({"Liferay", "Project Builder"})
+@Description("A phase of a portal scan")
+@Label("Scan Phase")
+@Name("com.liferay.netbeansproject.Phase")
+@StackTrace(false)
+public class PhaseEvent extends Event {
+
+	public void setPhase(String phase) {
+		_phase = phase;
+	}
+
+	public void setPortal(String portal) {
+		_portal = portal;
+	}
+
+	@Label("Phase")
+	@Name("phase")
+	private String _phase;
+
+	@Label("Portal")
+	@Name("portal")
+	private String _portal;
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @author Tom Wang
+ */
+@Category({"Liferay", "Project Builder"})
+@Description("Generation of a module or group module project")
+@Label("Project Generation")
+@Name("com.liferay.netbeansproject.ProjectGeneration")
+@StackTrace(false)
+public class ProjectGenerationEvent extends Event {
+
+	public void setModuleCount(int moduleCount) {
+		_moduleCount = moduleCount;
+	}
+
+	public void setProjectName(String projectName) {
+		_projectName = projectName;
+	}
+
+	public void setProjectType(String projectType) {
+		_projectType = projectType;
+	}
+
+	@Label("Module Count")
+	@Name("moduleCount")
+	private int _moduleCount;
+
+	@Label("Project Name")
+	@Name("projectName")
+	private String _projectName;
+
+	@Label("Project Type")
+	@Name("projectType")
+	private String _projectType;
+
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @author Tom Wang
+ */
+@Category({"Liferay", "Project Builder"})
+@Description("Rendering of a template into a project file")
+@Label("Template Render")
+@Name("com.liferay.netbeansproject.TemplateRender")
+@StackTrace(false)
+public class TemplateRenderEvent extends Event {
+
+	public void setPath(String path) {
+		_path = path;
+	}
+
+	public void setSize(long size) {
+		_size = size;
+	}
+
+	public void setTemplate(String template) {
+		_template = template;
+	}
+
+	public void setWritten(boolean written) {
+		_written = written;
+	}
+
+	@Label("Path")
+	@Name("path")
+	private String _path;
+
+	@DataAmount
+	@Label("Size")
+	@Name("size")
+	private long _size;
+
+	@Label("Template")
+	@Name("template")
+	private String _template;
+
+	@Description("Whether the file was written or left alone as unchanged")
+	@Label("Written")
+	@Name("written")
+	private boolean _written;
+
+}
@@ -14,20 +14,76 @@
 
 package com.liferay.netbeansproject.template;
 
+import com.liferay.netbeansproject.jfr.TemplateRenderEvent;
+import com.liferay.netbeansproject.util.FileUtil;
+
 import freemarker.cache.ClassTemplateLoader;
 
 import freemarker.template.Configuration;
 import freemarker.template.DefaultObjectWrapperBuilder;
 import freemarker.template.Template;
 
+import java.io.StringWriter;
 import java.io.Writer;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author Tariq Dweik
  * @author Brian Wing Shun Chan
  */
 public class FreeMarkerUtil {
 
+	public static int getSkippedCount() {
+		return _skippedCount.get();
+	}
+
+	public static int getWrittenCount() {
+		return _writtenCount.get();
+	}
+
+	/**
+	 * Renders the template and writes it to the path only when the rendered
+	 * bytes differ from the current file, so that NetBeans does not rescan
+	 * projects whose files did not change.
+	 */
+	public static void process(String name, Object context, Path path)
+		throws Exception {
+
+		TemplateRenderEvent templateRenderEvent = new TemplateRenderEvent();
+
+		templateRenderEvent.begin();
+
+		StringWriter stringWriter = new StringWriter();
+
+		process(name, context, stringWriter);
+
+		String content = stringWriter.toString();
+
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+		boolean written = FileUtil.write(path, bytes);
+
+		if (written) {
+			_writtenCount.incrementAndGet();
+		}
+		else {
+			_skippedCount.incrementAndGet();
+		}
+
+		if (templateRenderEvent.shouldCommit()) {
+			templateRenderEvent.setPath(String.valueOf(path));
+			templateRenderEvent.setSize(bytes.length);
+			templateRenderEvent.setTemplate(name);
+			templateRenderEvent.setWritten(written);
+
+			templateRenderEvent.commit();
+		}
+	}
+
 	public static void process(String name, Object context, Writer writer)
 		throws Exception {
 
@@ -37,6 +93,8 @@ public class FreeMarkerUtil {
 	}
 
 	private static final Configuration _configuration;
+	private static final AtomicInteger _skippedCount = new AtomicInteger();
+	private static final AtomicInteger _writtenCount = new AtomicInteger();
 
 	static {
 		_configuration = new Configuration(Configuration.getVersion());
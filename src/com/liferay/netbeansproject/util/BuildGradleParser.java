@@ -0,0 +1,742 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the dependency declarations of a build.gradle file in a single pass
+ * over its characters. Only the subset of the Gradle DSL that Liferay build
+ * files use inside dependencies blocks is understood: a configuration name
+ * followed by project(":a:b"), project(path: ":a:b"), group/name/version maps
+ * or "group:name:version:classifier@extension" strings, with or without
+ * parentheses, spread over any number of lines. Local files added with
+ * files(...) or fileTree(...) are reported without their arguments. Closures
+ * that follow a declaration are skipped and only recorded on the declaration,
+ * while the bodies of if and else blocks are read as part of the dependencies
+ * block.
+ *
+ * <p>
+ * The declarations of a file are cached by its path, and reused for as long as
+ * the length and CRC32 checksum of its content stay the same. Reading the file
+ * costs little next to tokenizing it, and unlike a modification time, which
+ * some file systems only keep to the second, the checksum catches every edit
+ * that keeps the size, such as a version bump.
+ * </p>
+ *
+ * @author Tom Wang
+ */
+public class BuildGradleParser {
+
+	public static List<Declaration> parse(Path buildGradlePath)
+		throws IOException {
+
+		byte[] bytes = Files.readAllBytes(buildGradlePath);
+
+		CRC32 crc32 = new CRC32();
+
+		crc32.update(bytes, 0, bytes.length);
+
+		long checksum = crc32.getValue();
+
+		CacheEntry cacheEntry = _cacheEntries.get(buildGradlePath);
+
+		if ((cacheEntry != null) && (cacheEntry._checksum == checksum) &&
+			(cacheEntry._length == bytes.length)) {
+
+			return cacheEntry._declarations;
+		}
+
+		List<Declaration> declarations = parse(
+			new String(bytes, StandardCharsets.UTF_8));
+
+		_cacheEntries.put(
+			buildGradlePath,
+			new CacheEntry(declarations, checksum, bytes.length));
+
+		return declarations;
+	}
+
+	public static List<Declaration> parse(String content) {
+		BuildGradleParser buildGradleParser = new BuildGradleParser(content);
+
+		buildGradleParser._parse();
+
+		return Collections.unmodifiableList(buildGradleParser._declarations);
+	}
+
+	private BuildGradleParser(String content) {
+		_content = content;
+	}
+
+	private void _addDeclaration(
+		String configuration, String group, String name, String version,
+		String classifier, String extension, boolean transitive,
+		String projectPath) {
+
+		_declarations.add(
+			new Declaration(
+				configuration, group, name, version, classifier, extension,
+				transitive, projectPath, false));
+	}
+
+	private int _next() {
+		if (_peekType != _NONE) {
+			int type = _peekType;
+
+			_text = _peekText;
+
+			_peekType = _NONE;
+
+			return type;
+		}
+
+		return _read();
+	}
+
+	private void _parse() {
+		int type = 0;
+
+		while ((type = _next()) != _EOF) {
+			if ((type == _IDENTIFIER) && _text.equals("dependencies") &&
+				(_peek() == '{')) {
+
+				_next();
+
+				_parseBlock();
+			}
+		}
+	}
+
+	/**
+	 * Reads statements up to the brace that closes the current block.
+	 */
+	private void _parseBlock() {
+		while (true) {
+			int type = _next();
+
+			if ((type == _EOF) || (type == '}')) {
+				return;
+			}
+
+			if ((type == '\n') || (type == ';')) {
+				continue;
+			}
+
+			if (type == '{') {
+				_parseBlock();
+
+				continue;
+			}
+
+			String configuration = null;
+
+			if (type == _IDENTIFIER) {
+				configuration = _text;
+			}
+			else {
+				_pushBack(type);
+			}
+
+			_parseStatement(configuration);
+		}
+	}
+
+	/**
+	 * Reads the arguments of project(...), which is either a path string or a
+	 * map with a path entry, and returns the project path.
+	 */
+	private String _parseProject() {
+		String projectPath = null;
+
+		int depth = 1;
+
+		while (depth > 0) {
+			int type = _next();
+
+			if (type == _EOF) {
+				break;
+			}
+
+			if ((type == '(') || (type == '[')) {
+				depth++;
+			}
+			else if ((type == ')') || (type == ']')) {
+				depth--;
+			}
+			else if ((type == _IDENTIFIER) && (_peek() == ':')) {
+				String key = _text;
+
+				_next();
+
+				int valueType = _next();
+
+				if (valueType != _STRING) {
+					_pushBack(valueType);
+				}
+				else if (key.equals("path")) {
+					projectPath = _text;
+				}
+			}
+			else if ((type == _STRING) && (projectPath == null)) {
+				projectPath = _text;
+			}
+		}
+
+		return projectPath;
+	}
+
+	/**
+	 * Reads one statement after its configuration name and adds a declaration
+	 * for every dependency notation in it. The statement ends at a line break
+	 * or semicolon outside of parentheses and brackets, unless the line ends
+	 * with a comma or colon.
+	 */
+	private void _parseStatement(String configuration) {
+		String group = null;
+		String name = null;
+		String version = null;
+		String classifier = null;
+		String extension = null;
+		boolean transitive = true;
+
+		boolean closure = false;
+		int declarationCount = _declarations.size();
+		int depth = 0;
+		int previousType = _NONE;
+
+		while (true) {
+			int type = _next();
+
+			if (type == _EOF) {
+				break;
+			}
+
+			if ((type == '\n') || (type == ';')) {
+				if ((depth == 0) && (previousType != ',') &&
+					(previousType != ':')) {
+
+					break;
+				}
+
+				continue;
+			}
+
+			if (type == '}') {
+				_pushBack(type);
+
+				break;
+			}
+
+			if (type == '{') {
+				if (depth > 0) {
+					_skip('{', '}');
+
+					closure = true;
+				}
+				else if ((_declarations.size() == declarationCount) &&
+						 (name == null)) {
+
+					_parseBlock();
+
+					break;
+				}
+				else {
+					_skip('{', '}');
+
+					closure = true;
+
+					break;
+				}
+			}
+			else if ((type == '(') || (type == '[')) {
+				depth++;
+
+				if (type == '[') {
+					if (name != null) {
+						_addDeclaration(
+							configuration, group, name, version, classifier,
+							extension, transitive, null);
+					}
+
+					group = name = version = classifier = extension = null;
+					transitive = true;
+				}
+			}
+			else if ((type == ')') || (type == ']')) {
+				if (depth > 0) {
+					depth--;
+				}
+			}
+			else if ((type == _IDENTIFIER) && (_peek() == ':')) {
+				String key = _text;
+
+				_next();
+
+				int valueType = _next();
+
+				if ((valueType == _IDENTIFIER) && key.equals("transitive")) {
+					transitive = !_text.equals("false");
+
+					previousType = valueType;
+
+					continue;
+				}
+
+				if (valueType != _STRING) {
+					_pushBack(valueType);
+
+					previousType = ':';
+
+					continue;
+				}
+
+				if (key.equals("classifier")) {
+					classifier = _text;
+				}
+				else if (key.equals("ext")) {
+					extension = _text;
+				}
+				else if (key.equals("group")) {
+					group = _text;
+				}
+				else if (key.equals("name")) {
+					if (name != null) {
+						_addDeclaration(
+							configuration, group, name, version, classifier,
+							extension, transitive, null);
+
+						group = version = classifier = extension = null;
+						transitive = true;
+					}
+
+					name = _text;
+				}
+				else if (key.equals("version")) {
+					version = _text;
+				}
+			}
+			else if ((type == _IDENTIFIER) && (_peek() == '(')) {
+				String method = _text;
+
+				_next();
+
+				if (method.equals("project")) {
+					String projectPath = _parseProject();
+
+					if (projectPath != null) {
+						_addDeclaration(
+							configuration, null, null, null, null, null, true,
+							projectPath);
+					}
+				}
+				else if (method.equals("files") ||
+						 method.equals("fileTree")) {
+
+					_skip('(', ')');
+
+					_declarations.add(
+						new Declaration(
+							configuration, null, null, null, null, null, true,
+							null, true));
+				}
+				else {
+					depth++;
+				}
+			}
+			else if (type == _STRING) {
+				String notation = _text;
+
+				String notationExtension = null;
+
+				int index = notation.indexOf('@');
+
+				if (index >= 0) {
+					notationExtension = notation.substring(index + 1);
+
+					notation = notation.substring(0, index);
+				}
+
+				String[] coordinates = StringUtil.split(notation, ':');
+
+				if ((coordinates.length >= 2) && !coordinates[0].isEmpty() &&
+					!coordinates[1].isEmpty()) {
+
+					_addDeclaration(
+						configuration, coordinates[0], coordinates[1],
+						(coordinates.length > 2) ? coordinates[2] : null,
+						(coordinates.length > 3) ? coordinates[3] : null,
+						notationExtension, true, null);
+				}
+			}
+
+			previousType = type;
+		}
+
+		if (name != null) {
+			_addDeclaration(
+				configuration, group, name, version, classifier, extension,
+				transitive, null);
+		}
+
+		if (closure) {
+			for (int i = declarationCount; i < _declarations.size(); i++) {
+				Declaration declaration = _declarations.get(i);
+
+				declaration._closure = true;
+			}
+		}
+	}
+
+	private int _peek() {
+		if (_peekType == _NONE) {
+			String text = _text;
+
+			_peekType = _read();
+			_peekText = _text;
+
+			_text = text;
+		}
+
+		return _peekType;
+	}
+
+	private void _pushBack(int type) {
+		_peekType = type;
+		_peekText = _text;
+	}
+
+	/**
+	 * Reads the next token from the content. Comments are skipped, and line
+	 * breaks are returned as tokens since they end statements.
+	 */
+	private int _read() {
+		int length = _content.length();
+
+		while (_index < length) {
+			char c = _content.charAt(_index);
+
+			if (c == '\n') {
+				_index++;
+
+				return '\n';
+			}
+
+			if (Character.isWhitespace(c)) {
+				_index++;
+
+				continue;
+			}
+
+			if (_content.startsWith("//", _index)) {
+				int index = _content.indexOf('\n', _index);
+
+				_index = (index < 0) ? length : index;
+
+				continue;
+			}
+
+			if (_content.startsWith("/*", _index)) {
+				int index = _content.indexOf("*/", _index + 2);
+
+				_index = (index < 0) ? length : index + 2;
+
+				continue;
+			}
+
+			if ((c == '"') || (c == '\'')) {
+				_readString(c);
+
+				return _STRING;
+			}
+
+			int start = _index;
+
+			if (Character.isJavaIdentifierStart(c)) {
+				do {
+					_index++;
+				}
+				while ((_index < length) &&
+					   Character.isJavaIdentifierPart(_content.charAt(_index)));
+
+				_text = _content.substring(start, _index);
+
+				return _IDENTIFIER;
+			}
+
+			if (Character.isDigit(c)) {
+				do {
+					_index++;
+				}
+				while ((_index < length) &&
+					   (Character.isLetterOrDigit(_content.charAt(_index)) ||
+						(_content.charAt(_index) == '.')));
+
+				_text = _content.substring(start, _index);
+
+				return _NUMBER;
+			}
+
+			_index++;
+
+			return c;
+		}
+
+		return _EOF;
+	}
+
+	private void _readString(char quote) {
+		String delimiter = String.valueOf(quote);
+
+		if (_content.startsWith(
+				new String(new char[] {quote, quote, quote}), _index)) {
+
+			delimiter = new String(new char[] {quote, quote, quote});
+		}
+
+		_index += delimiter.length();
+
+		StringBuilder sb = new StringBuilder();
+
+		int length = _content.length();
+
+		while (_index < length) {
+			if (_content.startsWith(delimiter, _index)) {
+				_index += delimiter.length();
+
+				break;
+			}
+
+			char c = _content.charAt(_index++);
+
+			if ((c == '\\') && (_index < length)) {
+				c = _content.charAt(_index++);
+			}
+			else if ((c == '\n') && (delimiter.length() == 1)) {
+				_index--;
+
+				break;
+			}
+
+			sb.append(c);
+		}
+
+		_text = sb.toString();
+	}
+
+	/**
+	 * Skips to the token that closes an already opened pair of braces or
+	 * parentheses.
+	 */
+	private void _skip(int open, int close) {
+		int depth = 1;
+
+		while (depth > 0) {
+			int type = _next();
+
+			if (type == _EOF) {
+				return;
+			}
+
+			if (type == open) {
+				depth++;
+			}
+			else if (type == close) {
+				depth--;
+			}
+		}
+	}
+
+	public static class Declaration {
+
+		public String getClassifier() {
+			return _classifier;
+		}
+
+		public String getConfiguration() {
+			return _configuration;
+		}
+
+		/**
+		 * Returns the artifact extension given with @extension or an ext
+		 * entry, or <code>null</code> for the default extension.
+		 */
+		public String getExtension() {
+			return _extension;
+		}
+
+		public String getGroup() {
+			return _group;
+		}
+
+		public String getName() {
+			return _name;
+		}
+
+		public String getProjectPath() {
+			return _projectPath;
+		}
+
+		public String getVersion() {
+			return _version;
+		}
+
+		/**
+		 * Returns whether a closure follows the declaration, which can exclude
+		 * dependencies or change how the declaration is resolved.
+		 */
+		public boolean hasClosure() {
+			return _closure;
+		}
+
+		/**
+		 * Returns whether the declaration adds local files with files(...) or
+		 * fileTree(...) instead of a project or module.
+		 */
+		public boolean isFiles() {
+			return _files;
+		}
+
+		public boolean isTest() {
+			if ((_configuration != null) &&
+				_configuration.startsWith("test")) {
+
+				return true;
+			}
+
+			return false;
+		}
+
+		/**
+		 * Returns <code>false</code> when the declaration sets transitive to
+		 * false in its map.
+		 */
+		public boolean isTransitive() {
+			return _transitive;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+
+			sb.append(_configuration);
+			sb.append(' ');
+
+			if (_files) {
+				sb.append("files(...)");
+			}
+			else if (_projectPath != null) {
+				sb.append("project(");
+				sb.append(_projectPath);
+				sb.append(')');
+			}
+			else {
+				sb.append(_group);
+				sb.append(':');
+				sb.append(_name);
+				sb.append(':');
+				sb.append(_version);
+
+				if (_classifier != null) {
+					sb.append(':');
+					sb.append(_classifier);
+				}
+
+				if (_extension != null) {
+					sb.append('@');
+					sb.append(_extension);
+				}
+			}
+
+			return sb.toString();
+		}
+
+		private Declaration(
+			String configuration, String group, String name, String version,
+			String classifier, String extension, boolean transitive,
+			String projectPath, boolean files) {
+
+			_configuration = configuration;
+			_group = group;
+			_name = name;
+			_version = version;
+			_classifier = classifier;
+			_extension = extension;
+			_transitive = transitive;
+			_projectPath = projectPath;
+			_files = files;
+		}
+
+		private final String _classifier;
+		private boolean _closure;
+		private final String _configuration;
+		private final String _extension;
+		private final boolean _files;
+		private final String _group;
+		private final String _name;
+		private final String _projectPath;
+		private final boolean _transitive;
+		private final String _version;
+
+	}
+
+	private static class CacheEntry {
+
+		private CacheEntry(
+			List<Declaration> declarations, long checksum, int length) {
+
+			_declarations = declarations;
+			_checksum = checksum;
+			_length = length;
+		}
+
+		private final long _checksum;
+		private final List<Declaration> _declarations;
+		private final int _length;
+
+	}
+
+	private static final int _EOF = -1;
+
+	private static final int _IDENTIFIER = -2;
+
+	private static final int _NONE = -3;
+
+	private static final int _NUMBER = -4;
+
+	private static final int _STRING = -5;
+
+	private static final Map<Path, CacheEntry> _cacheEntries =
+		new ConcurrentHashMap<>();
+
+	private final String _content;
+	private final List<Declaration> _declarations = new ArrayList<>();
+	private int _index;
+	private int _peekType = _NONE;
+	private String _peekText;
+	private String _text;
+
+}
@@ -0,0 +1,351 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the dependency properties that dependency.gradle prints for a module,
+ * keyed by a hash of the module's path inside the portal, the root Gradle
+ * build scripts, the Gradle wrapper version and the init script, and the build
+ * scripts of the module, of the directories between it and the modules
+ * directory and of the modules it depends on through project(...), followed
+ * transitively. Paths inside the portal are stored relative to a placeholder,
+ * so portals with identical build files share entries.
+ *
+ * @author Tom Wang
+ */
+public class DependencyCache {
+
+	public DependencyCache(Path cacheDirPath, Path portalDirPath)
+		throws IOException {
+
+		_cacheDirPath = cacheDirPath;
+		_portalDirPath = portalDirPath;
+
+		_portalModulesDirPath = portalDirPath.resolve("modules");
+
+		MessageDigest messageDigest = _getMessageDigest();
+
+		List<Path> buildScriptPaths = new ArrayList<>();
+
+		buildScriptPaths.addAll(_getBuildScriptPaths(portalDirPath));
+		buildScriptPaths.addAll(
+			_getBuildScriptPaths(portalDirPath.resolve("modules")));
+
+		buildScriptPaths.add(
+			portalDirPath.resolve("gradle/wrapper/gradle-wrapper.properties"));
+		buildScriptPaths.add(
+			portalDirPath.resolve(
+				"modules/gradle/wrapper/gradle-wrapper.properties"));
+
+		for (Path buildScriptPath : buildScriptPaths) {
+			_update(
+				messageDigest,
+				String.valueOf(portalDirPath.relativize(buildScriptPath)));
+
+			if (Files.exists(buildScriptPath)) {
+				messageDigest.update(Files.readAllBytes(buildScriptPath));
+			}
+		}
+
+		messageDigest.update(
+			Files.readAllBytes(Paths.get("dependency.gradle")));
+
+		_buildScriptsHash = messageDigest.digest();
+	}
+
+	public Properties load(Path modulePath) throws IOException {
+		Path cachePath = _getCachePath(modulePath);
+
+		if (Files.notExists(cachePath)) {
+			return null;
+		}
+
+		Properties properties = new Properties();
+
+		try (InputStream inputStream = Files.newInputStream(cachePath)) {
+			properties.load(inputStream);
+		}
+
+		String portalDir = String.valueOf(_portalDirPath) + File.separator;
+
+		for (String key : properties.stringPropertyNames()) {
+			properties.setProperty(
+				key,
+				StringUtil.replace(
+					properties.getProperty(key), _PORTAL_DIR, portalDir));
+		}
+
+		return properties;
+	}
+
+	public void store(Path modulePath, Properties dependencyProperties)
+		throws IOException {
+
+		Path cachePath = _getCachePath(modulePath);
+
+		Files.createDirectories(cachePath.getParent());
+
+		Properties properties = new Properties();
+
+		String portalDir = String.valueOf(_portalDirPath) + File.separator;
+
+		for (String key : dependencyProperties.stringPropertyNames()) {
+			properties.setProperty(
+				key,
+				StringUtil.replace(
+					dependencyProperties.getProperty(key), portalDir,
+					_PORTAL_DIR));
+		}
+
+		Path tempCachePath = Files.createTempFile(
+			cachePath.getParent(), null, null);
+
+		try (Writer writer = Files.newBufferedWriter(tempCachePath)) {
+			properties.store(writer, String.valueOf(modulePath));
+		}
+
+		Files.move(
+			tempCachePath, cachePath, StandardCopyOption.ATOMIC_MOVE,
+			StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static List<Path> _getBuildScriptPaths(Path dirPath)
+		throws IOException {
+
+		List<Path> buildScriptPaths = new ArrayList<>();
+
+		if (Files.notExists(dirPath)) {
+			return buildScriptPaths;
+		}
+
+		try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(
+				dirPath, "{*.gradle,gradle.properties}")) {
+
+			for (Path path : directoryStream) {
+				if (Files.isRegularFile(path)) {
+					buildScriptPaths.add(path);
+				}
+			}
+		}
+
+		Collections.sort(buildScriptPaths);
+
+		return buildScriptPaths;
+	}
+
+	private static MessageDigest _getMessageDigest() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		}
+		catch (NoSuchAlgorithmException nsae) {
+			throw new Error(nsae);
+		}
+	}
+
+	private static void _update(MessageDigest messageDigest, String s) {
+		messageDigest.update(s.getBytes(StandardCharsets.UTF_8));
+		messageDigest.update((byte)0);
+	}
+
+	/**
+	 * Returns the hash of the directory's path inside the portal and the
+	 * Gradle build scripts directly in it, computed once per directory for the
+	 * lifetime of this cache.
+	 */
+	private byte[] _getBuildScriptsHash(Path dirPath) throws IOException {
+		byte[] buildScriptsHash = _buildScriptsHashes.get(dirPath);
+
+		if (buildScriptsHash != null) {
+			return buildScriptsHash;
+		}
+
+		MessageDigest messageDigest = _getMessageDigest();
+
+		_update(
+			messageDigest, String.valueOf(_portalDirPath.relativize(dirPath)));
+
+		for (Path buildScriptPath : _getBuildScriptPaths(dirPath)) {
+			_update(
+				messageDigest, String.valueOf(buildScriptPath.getFileName()));
+
+			messageDigest.update(Files.readAllBytes(buildScriptPath));
+		}
+
+		buildScriptsHash = messageDigest.digest();
+
+		_buildScriptsHashes.put(dirPath, buildScriptsHash);
+
+		return buildScriptsHash;
+	}
+
+	private Path _getCachePath(Path modulePath) throws IOException {
+		MessageDigest messageDigest = _getMessageDigest();
+
+		messageDigest.update(_buildScriptsHash);
+
+		_update(
+			messageDigest,
+			String.valueOf(_portalDirPath.relativize(modulePath)));
+
+		byte[] projectsHash = new byte[messageDigest.getDigestLength()];
+
+		for (Path projectPath : _getProjectPaths(modulePath)) {
+			byte[] projectHash = _getProjectHash(projectPath);
+
+			for (int i = 0; i < projectsHash.length; i++) {
+				projectsHash[i] ^= projectHash[i];
+			}
+		}
+
+		messageDigest.update(projectsHash);
+
+		String key = StringUtil.bytesToHexString(messageDigest.digest());
+
+		return _cacheDirPath.resolve(
+			Paths.get(key.substring(0, 2), key.concat(".properties")));
+	}
+
+	/**
+	 * Returns the hash of the build scripts of the project directory and of
+	 * the directories between it and the modules directory. The hashes of the
+	 * projects of a module are combined with exclusive or, so that the order
+	 * in which its project(...) dependencies are found does not matter.
+	 */
+	private byte[] _getProjectHash(Path projectPath) throws IOException {
+		byte[] projectHash = _projectHashes.get(projectPath);
+
+		if (projectHash != null) {
+			return projectHash;
+		}
+
+		MessageDigest messageDigest = _getMessageDigest();
+
+		Path dirPath = projectPath;
+
+		while (dirPath.startsWith(_portalDirPath) &&
+			   !dirPath.equals(_portalDirPath) &&
+			   !dirPath.equals(_portalModulesDirPath)) {
+
+			messageDigest.update(_getBuildScriptsHash(dirPath));
+
+			dirPath = dirPath.getParent();
+		}
+
+		projectHash = messageDigest.digest();
+
+		_projectHashes.put(projectPath, projectHash);
+
+		return projectHash;
+	}
+
+	/**
+	 * Returns the module together with the modules it depends on through
+	 * project(...) declarations, followed transitively. The result of every
+	 * module is kept, and the walk stops at modules whose result is known.
+	 */
+	private Set<Path> _getProjectPaths(Path modulePath) throws IOException {
+		Set<Path> projectPaths = _projectPathsMap.get(modulePath);
+
+		if (projectPaths != null) {
+			return projectPaths;
+		}
+
+		projectPaths = new HashSet<>();
+
+		Deque<Path> deque = new ArrayDeque<>();
+
+		projectPaths.add(modulePath);
+
+		deque.add(modulePath);
+
+		while (!deque.isEmpty()) {
+			Path buildGradlePath = deque.remove().resolve("build.gradle");
+
+			if (Files.notExists(buildGradlePath)) {
+				continue;
+			}
+
+			for (BuildGradleParser.Declaration declaration :
+					BuildGradleParser.parse(buildGradlePath)) {
+
+				String projectPath = declaration.getProjectPath();
+
+				if (projectPath == null) {
+					continue;
+				}
+
+				Path dependencyPath = _portalModulesDirPath.resolve(
+					Paths.get("", StringUtil.split(projectPath, ':')));
+
+				if (!projectPaths.add(dependencyPath)) {
+					continue;
+				}
+
+				Set<Path> dependencyProjectPaths = _projectPathsMap.get(
+					dependencyPath);
+
+				if (dependencyProjectPaths == null) {
+					deque.add(dependencyPath);
+				}
+				else {
+					projectPaths.addAll(dependencyProjectPaths);
+				}
+			}
+		}
+
+		_projectPathsMap.put(modulePath, projectPaths);
+
+		return projectPaths;
+	}
+
+	private static final String _PORTAL_DIR = "${portal.dir}" + File.separator;
+
+	private final byte[] _buildScriptsHash;
+	private final Map<Path, byte[]> _buildScriptsHashes =
+		new ConcurrentHashMap<>();
+	private final Path _cacheDirPath;
+	private final Path _portalDirPath;
+	private final Path _portalModulesDirPath;
+	private final Map<Path, byte[]> _projectHashes = new ConcurrentHashMap<>();
+	private final Map<Path, Set<Path>> _projectPathsMap =
+		new ConcurrentHashMap<>();
+
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * @author Shuyang Zhou
+ */
+public class ExecutorUtil {
+
+	/**
+	 * Waits for all of the futures. Results are returned in the order of the
+	 * futures. If any of them fails, the failure of the earliest one is thrown
+	 * with the later failures attached as suppressed exceptions, so the
+	 * reported error does not depend on thread scheduling.
+	 */
+	public static <T> List<T> getAll(List<Future<T>> futures)
+		throws Exception {
+
+		List<T> results = new ArrayList<>(futures.size());
+
+		Exception exception = null;
+
+		for (Future<T> future : futures) {
+			try {
+				results.add(future.get());
+			}
+			catch (ExecutionException ee) {
+				Throwable cause = ee.getCause();
+
+				if (cause instanceof Error) {
+					throw (Error)cause;
+				}
+
+				if (exception == null) {
+					exception = (Exception)cause;
+				}
+				else {
+					exception.addSuppressed(cause);
+				}
+			}
+		}
+
+		if (exception != null) {
+			throw exception;
+		}
+
+		return results;
+	}
+
+	/**
+	 * Runs the callables on the executor service and waits for all of them,
+	 * see {@link #getAll(List)}.
+	 */
+	public static <T> List<T> invokeAll(
+			ExecutorService executorService, List<Callable<T>> callables)
+		throws Exception {
+
+		List<Future<T>> futures = new ArrayList<>(callables.size());
+
+		for (Callable<T> callable : callables) {
+			futures.add(executorService.submit(callable));
+		}
+
+		return getAll(futures);
+	}
+
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import java.io.IOException;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deletes directories by atomically moving them into a trash directory on the
+ * same file system and removing them on background threads, so the caller
+ * can recreate the path right away. Trash left behind by an interrupted run
+ * is reaped when the next reaper starts.
+ *
+ * @author Tom Wang
+ */
+public class FileReaper {
+
+	public FileReaper(Path trashDirPath, int parallelism) throws IOException {
+		_trashDirPath = trashDirPath;
+
+		_executorService = Executors.newFixedThreadPool(
+			parallelism,
+			new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(
+						runnable,
+						"FileReaper-" + _threadCounter.incrementAndGet());
+
+					thread.setDaemon(true);
+
+					return thread;
+				}
+
+			});
+
+		if (Files.exists(trashDirPath)) {
+			for (Path trashEntryPath : _list(trashDirPath)) {
+				_reap(trashEntryPath);
+			}
+		}
+	}
+
+	/**
+	 * Waits until every directory handed to this reaper so far is gone and
+	 * rethrows the first failure.
+	 */
+	public void await() throws Exception {
+		List<Future<?>> futures = null;
+
+		synchronized (_futures) {
+			futures = new ArrayList<>(_futures);
+
+			_futures.clear();
+		}
+
+		for (Future<?> future : futures) {
+			future.get();
+		}
+	}
+
+	public void delete(Path path) throws IOException {
+		if (Files.notExists(path, LinkOption.NOFOLLOW_LINKS)) {
+			return;
+		}
+
+		Files.createDirectories(_trashDirPath);
+
+		Path trashEntryPath = Files.createTempDirectory(_trashDirPath, null);
+
+		try {
+			Files.move(
+				path, trashEntryPath.resolve(path.getFileName()),
+				StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException ioe) {
+			Files.delete(trashEntryPath);
+
+			FileUtil.delete(path);
+
+			return;
+		}
+
+		_reap(trashEntryPath);
+	}
+
+	private static List<Path> _list(Path dirPath) throws IOException {
+		List<Path> paths = new ArrayList<>();
+
+		try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(
+				dirPath)) {
+
+			for (Path path : directoryStream) {
+				paths.add(path);
+			}
+		}
+
+		return paths;
+	}
+
+	private void _reap(final Path trashEntryPath) throws IOException {
+		List<Path> subtreePaths = new ArrayList<>();
+
+		for (Path path : _list(trashEntryPath)) {
+			if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+				subtreePaths.addAll(_list(path));
+			}
+		}
+
+		if (subtreePaths.isEmpty()) {
+			_submit(
+				new ReapRunnable(trashEntryPath, trashEntryPath, null));
+
+			return;
+		}
+
+		AtomicInteger remainingCount = new AtomicInteger(subtreePaths.size());
+
+		for (Path subtreePath : subtreePaths) {
+			_submit(
+				new ReapRunnable(subtreePath, trashEntryPath, remainingCount));
+		}
+	}
+
+	private void _submit(Runnable runnable) {
+		synchronized (_futures) {
+			_futures.add(_executorService.submit(runnable));
+		}
+	}
+
+	private static class ReapRunnable implements Runnable {
+
+		@Override
+		public void run() {
+			try {
+				FileUtil.delete(_path);
+
+				if ((_remainingCount == null) ||
+					(_remainingCount.decrementAndGet() == 0)) {
+
+					FileUtil.delete(_trashEntryPath);
+				}
+			}
+			catch (IOException ioe) {
+				throw new RuntimeException(ioe);
+			}
+		}
+
+		private ReapRunnable(
+			Path path, Path trashEntryPath, AtomicInteger remainingCount) {
+
+			_path = path;
+			_trashEntryPath = trashEntryPath;
+			_remainingCount = remainingCount;
+		}
+
+		private final Path _path;
+		private final AtomicInteger _remainingCount;
+		private final Path _trashEntryPath;
+
+	}
+
+	private static final AtomicInteger _threadCounter = new AtomicInteger();
+
+	private final ExecutorService _executorService;
+	private final List<Future<?>> _futures = new ArrayList<>();
+	private final Path _trashDirPath;
+
+}
\ No newline at end of file
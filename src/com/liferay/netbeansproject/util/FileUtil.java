@@ -16,12 +16,17 @@ package com.liferay.netbeansproject.util;
 
 import java.io.IOException;
 
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author Tom Wang
  */
@@ -99,4 +104,117 @@ public class FileUtil {
 			});
 	}
 
+	/**
+	 * Mirrors the source tree into the target tree, hard linking each file
+	 * that is missing in the target. Falls back to a symbolic link, then to a
+	 * copy, once the file system refuses the cheaper option.
+	 */
+	public static void link(Path sourcePath, Path targetPath)
+		throws IOException {
+
+		if (!Files.exists(sourcePath)) {
+			throw new IOException(sourcePath + " does not exist");
+		}
+
+		final AtomicInteger linkMode = new AtomicInteger(_LINK_MODE_HARD);
+
+		Files.walkFileTree(
+			sourcePath,
+			new SimpleFileVisitor<Path>() {
+
+				@Override
+				public FileVisitResult preVisitDirectory(
+						Path path, BasicFileAttributes basicFileAttributes)
+					throws IOException {
+
+					Files.createDirectories(
+						targetPath.resolve(sourcePath.relativize(path)));
+
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(
+						Path path, BasicFileAttributes basicFileAttributes)
+					throws IOException {
+
+					Path targetFilePath = targetPath.resolve(
+						sourcePath.relativize(path));
+
+					if (Files.exists(
+							targetFilePath, LinkOption.NOFOLLOW_LINKS)) {
+
+						return FileVisitResult.CONTINUE;
+					}
+
+					try {
+						_link(path, targetFilePath, linkMode);
+					}
+					catch (FileAlreadyExistsException faee) {
+					}
+
+					return FileVisitResult.CONTINUE;
+				}
+
+			});
+	}
+
+	/**
+	 * Writes the bytes to the path unless the file already has exactly these
+	 * bytes, and returns whether the file was written.
+	 */
+	public static boolean write(Path path, byte[] bytes) throws IOException {
+		if (Files.exists(path) && (Files.size(path) == bytes.length) &&
+			Arrays.equals(Files.readAllBytes(path), bytes)) {
+
+			return false;
+		}
+
+		Files.write(path, bytes);
+
+		return true;
+	}
+
+	private static void _link(
+			Path sourcePath, Path targetPath, AtomicInteger linkMode)
+		throws IOException {
+
+		if (linkMode.get() == _LINK_MODE_HARD) {
+			try {
+				Files.createLink(targetPath, sourcePath);
+
+				return;
+			}
+			catch (FileAlreadyExistsException faee) {
+				throw faee;
+			}
+			catch (IOException | UnsupportedOperationException e) {
+				linkMode.set(_LINK_MODE_SYMBOLIC);
+			}
+		}
+
+		if (linkMode.get() == _LINK_MODE_SYMBOLIC) {
+			try {
+				Files.createSymbolicLink(
+					targetPath, sourcePath.toAbsolutePath());
+
+				return;
+			}
+			catch (FileAlreadyExistsException faee) {
+				throw faee;
+			}
+			catch (IOException | UnsupportedOperationException e) {
+				linkMode.set(_LINK_MODE_COPY);
+			}
+		}
+
+		Files.copy(sourcePath, targetPath);
+	}
+
+	private static final int _LINK_MODE_COPY = 2;
+
+	private static final int _LINK_MODE_HARD = 0;
+
+	private static final int _LINK_MODE_SYMBOLIC = 1;
+
 }
\ No newline at end of file
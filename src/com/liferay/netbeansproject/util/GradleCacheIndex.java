@@ -0,0 +1,488 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the artifacts in files-2.1 Gradle caches, with the jar, sources
+ * jar and POM of every group, name and version directory, and the size and
+ * modification time of the files. The index of a cache is refreshed by
+ * listing its group, name and version directories, and only the version
+ * directories whose modification time changed are read again, since Gradle
+ * adds every file in a new hash directory below its version directory.
+ *
+ * <p>
+ * The index is saved as one file for all caches, and read back into a heap
+ * buffer in one read, so the same index serves every portal that shares the
+ * dependency cache directory.
+ * </p>
+ *
+ * @author Tom Wang
+ */
+public class GradleCacheIndex {
+
+	public static GradleCacheIndex load(Path gradleCacheIndexPath) {
+		GradleCacheIndex gradleCacheIndex = new GradleCacheIndex();
+
+		if (Files.notExists(gradleCacheIndexPath)) {
+			return gradleCacheIndex;
+		}
+
+		try {
+			ByteBuffer byteBuffer = ByteBuffer.wrap(
+				Files.readAllBytes(gradleCacheIndexPath));
+
+			if (byteBuffer.getInt() != _MAGIC) {
+				System.out.println(
+					"Discarding " + gradleCacheIndexPath +
+						" written in an unknown format");
+
+				return gradleCacheIndex;
+			}
+
+			int gradleCacheCount = byteBuffer.getInt();
+
+			for (int i = 0; i < gradleCacheCount; i++) {
+				Path gradleCachePath = Paths.get(_readString(byteBuffer));
+
+				int versionCount = byteBuffer.getInt();
+
+				Map<String, VersionEntry> versionEntries = new HashMap<>(
+					versionCount * 4 / 3 + 1);
+
+				for (int j = 0; j < versionCount; j++) {
+					String versionDir = _readString(byteBuffer);
+
+					VersionEntry versionEntry = new VersionEntry(
+						byteBuffer.getLong());
+
+					int fileCount = byteBuffer.getInt();
+
+					for (int k = 0; k < fileCount; k++) {
+						versionEntry._fileEntries.add(
+							new FileEntry(
+								_readString(byteBuffer), byteBuffer.getLong(),
+								byteBuffer.getLong()));
+					}
+
+					versionEntries.put(versionDir, versionEntry);
+				}
+
+				gradleCacheIndex._putVersionEntries(
+					gradleCachePath, versionEntries);
+			}
+		}
+		catch (Exception e) {
+			System.out.println("Discarding " + gradleCacheIndexPath + ": " + e);
+
+			return new GradleCacheIndex();
+		}
+
+		return gradleCacheIndex;
+	}
+
+	/**
+	 * Returns the artifact of the group, name and version in the cache, or
+	 * <code>null</code> when the cache has no such version directory.
+	 */
+	public Artifact getArtifact(
+		Path gradleCachePath, String group, String name, String version) {
+
+		Map<String, VersionEntry> versionEntries = _gradleCaches.get(
+			gradleCachePath.toAbsolutePath());
+
+		if (versionEntries == null) {
+			return null;
+		}
+
+		VersionEntry versionEntry = versionEntries.get(
+			group + '/' + name + '/' + version);
+
+		if (versionEntry == null) {
+			return null;
+		}
+
+		Path versionDirPath = gradleCachePath.toAbsolutePath().resolve(
+			Paths.get(group, name, version));
+
+		String prefix = name + '-' + version;
+
+		Artifact artifact = new Artifact();
+
+		for (FileEntry fileEntry : versionEntry._fileEntries) {
+			String fileName = fileEntry._getFileName();
+
+			if (fileName.equals(prefix + ".jar")) {
+				artifact._jarPath = versionDirPath.resolve(fileEntry._path);
+				artifact._lastModifiedTime = fileEntry._lastModifiedTime;
+				artifact._size = fileEntry._size;
+			}
+			else if (fileName.equals(prefix + ".pom")) {
+				artifact._pomPath = versionDirPath.resolve(fileEntry._path);
+			}
+			else if (fileName.equals(prefix + "-sources.jar")) {
+				artifact._sourceJarPath = versionDirPath.resolve(
+					fileEntry._path);
+			}
+		}
+
+		return artifact;
+	}
+
+	/**
+	 * Returns the sources jar next to a jar of an indexed cache, or
+	 * <code>null</code> when the jar is not in an indexed cache or the cache
+	 * has no sources for it.
+	 */
+	public Path getSourceJarPath(Path jarPath) {
+		return _sourceJarPaths.get(jarPath);
+	}
+
+	/**
+	 * Adds the cache to the index, or brings its entries up to date.
+	 */
+	public synchronized void index(Path gradleCachePath) throws IOException {
+		gradleCachePath = gradleCachePath.toAbsolutePath();
+
+		Map<String, VersionEntry> previousVersionEntries = _gradleCaches.get(
+			gradleCachePath);
+
+		if (previousVersionEntries == null) {
+			previousVersionEntries = Collections.emptyMap();
+		}
+
+		Map<String, VersionEntry> versionEntries = new HashMap<>(
+			previousVersionEntries.size() * 4 / 3 + 1);
+
+		if (Files.isDirectory(gradleCachePath)) {
+			for (Path groupDirPath : _getDirPaths(gradleCachePath)) {
+				for (Path nameDirPath : _getDirPaths(groupDirPath)) {
+					for (Path versionDirPath : _getDirPaths(nameDirPath)) {
+						String versionDir = _getVersionDir(
+							gradleCachePath, versionDirPath);
+
+						long lastModifiedTime = Files.getLastModifiedTime(
+							versionDirPath).toMillis();
+
+						VersionEntry versionEntry = previousVersionEntries.get(
+							versionDir);
+
+						if ((versionEntry == null) ||
+							(versionEntry._lastModifiedTime !=
+								lastModifiedTime)) {
+
+							versionEntry = _readVersionDir(
+								versionDirPath, lastModifiedTime);
+
+							_modified = true;
+						}
+
+						versionEntries.put(versionDir, versionEntry);
+					}
+				}
+			}
+		}
+
+		if (versionEntries.size() != previousVersionEntries.size()) {
+			_modified = true;
+		}
+
+		for (Map.Entry<String, VersionEntry> entry :
+				previousVersionEntries.entrySet()) {
+
+			if (versionEntries.get(entry.getKey()) != entry.getValue()) {
+				_removeSourceJarPaths(
+					gradleCachePath.resolve(entry.getKey()), entry.getValue());
+			}
+		}
+
+		_putVersionEntries(gradleCachePath, versionEntries);
+	}
+
+	public synchronized void save(Path gradleCacheIndexPath)
+		throws IOException {
+
+		if (!_modified && Files.exists(gradleCacheIndexPath)) {
+			return;
+		}
+
+		Files.createDirectories(gradleCacheIndexPath.getParent());
+
+		Path tempGradleCacheIndexPath = gradleCacheIndexPath.resolveSibling(
+			gradleCacheIndexPath.getFileName() + ".tmp");
+
+		try (DataOutputStream dataOutputStream = new DataOutputStream(
+				new BufferedOutputStream(
+					Files.newOutputStream(tempGradleCacheIndexPath)))) {
+
+			dataOutputStream.writeInt(_MAGIC);
+			dataOutputStream.writeInt(_gradleCaches.size());
+
+			for (Map.Entry<Path, Map<String, VersionEntry>> entry :
+					_gradleCaches.entrySet()) {
+
+				_writeString(dataOutputStream, String.valueOf(entry.getKey()));
+
+				Map<String, VersionEntry> versionEntries = entry.getValue();
+
+				dataOutputStream.writeInt(versionEntries.size());
+
+				for (Map.Entry<String, VersionEntry> versionEntry :
+						versionEntries.entrySet()) {
+
+					_writeString(dataOutputStream, versionEntry.getKey());
+
+					VersionEntry value = versionEntry.getValue();
+
+					dataOutputStream.writeLong(value._lastModifiedTime);
+					dataOutputStream.writeInt(value._fileEntries.size());
+
+					for (FileEntry fileEntry : value._fileEntries) {
+						_writeString(dataOutputStream, fileEntry._path);
+
+						dataOutputStream.writeLong(fileEntry._size);
+						dataOutputStream.writeLong(fileEntry._lastModifiedTime);
+					}
+				}
+			}
+		}
+
+		Files.move(
+			tempGradleCacheIndexPath, gradleCacheIndexPath,
+			StandardCopyOption.ATOMIC_MOVE,
+			StandardCopyOption.REPLACE_EXISTING);
+
+		_modified = false;
+	}
+
+	public int size() {
+		int size = 0;
+
+		for (Map<String, VersionEntry> versionEntries :
+				_gradleCaches.values()) {
+
+			size += versionEntries.size();
+		}
+
+		return size;
+	}
+
+	private static List<Path> _getDirPaths(Path dirPath) throws IOException {
+		List<Path> dirPaths = new ArrayList<>();
+
+		try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(
+				dirPath)) {
+
+			for (Path path : directoryStream) {
+				if (Files.isDirectory(path)) {
+					dirPaths.add(path);
+				}
+			}
+		}
+
+		return dirPaths;
+	}
+
+	private static String _getVersionDir(
+		Path gradleCachePath, Path versionDirPath) {
+
+		Path path = gradleCachePath.relativize(versionDirPath);
+
+		return path.getName(0) + "/" + path.getName(1) + "/" + path.getName(2);
+	}
+
+	private static VersionEntry _readVersionDir(
+			Path versionDirPath, long lastModifiedTime)
+		throws IOException {
+
+		VersionEntry versionEntry = new VersionEntry(lastModifiedTime);
+
+		for (Path hashDirPath : _getDirPaths(versionDirPath)) {
+			try (DirectoryStream<Path> directoryStream =
+					Files.newDirectoryStream(hashDirPath)) {
+
+				for (Path path : directoryStream) {
+					BasicFileAttributes basicFileAttributes =
+						Files.readAttributes(path, BasicFileAttributes.class);
+
+					if (!basicFileAttributes.isRegularFile()) {
+						continue;
+					}
+
+					versionEntry._fileEntries.add(
+						new FileEntry(
+							hashDirPath.getFileName() + "/" +
+								path.getFileName(),
+							basicFileAttributes.size(),
+							basicFileAttributes.lastModifiedTime().toMillis()));
+				}
+			}
+		}
+
+		return versionEntry;
+	}
+
+	private static String _readString(ByteBuffer byteBuffer) {
+		byte[] bytes = new byte[byteBuffer.getShort() & 0xFFFF];
+
+		byteBuffer.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void _writeString(
+			DataOutputStream dataOutputStream, String s)
+		throws IOException {
+
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+
+		dataOutputStream.writeShort(bytes.length);
+		dataOutputStream.write(bytes);
+	}
+
+	private void _putVersionEntries(
+		Path gradleCachePath, Map<String, VersionEntry> versionEntries) {
+
+		for (Map.Entry<String, VersionEntry> entry :
+				versionEntries.entrySet()) {
+
+			Path versionDirPath = gradleCachePath.resolve(entry.getKey());
+
+			Map<String, String> fileNamePaths = new HashMap<>();
+
+			VersionEntry versionEntry = entry.getValue();
+
+			for (FileEntry fileEntry : versionEntry._fileEntries) {
+				fileNamePaths.put(fileEntry._getFileName(), fileEntry._path);
+			}
+
+			for (FileEntry fileEntry : versionEntry._fileEntries) {
+				String fileName = fileEntry._getFileName();
+
+				if (!fileName.endsWith(".jar") ||
+					fileName.endsWith("-sources.jar")) {
+
+					continue;
+				}
+
+				String sourceJarPath = fileNamePaths.get(
+					fileName.substring(0, fileName.length() - 4) +
+						"-sources.jar");
+
+				if (sourceJarPath != null) {
+					_sourceJarPaths.put(
+						versionDirPath.resolve(fileEntry._path),
+						versionDirPath.resolve(sourceJarPath));
+				}
+			}
+		}
+
+		_gradleCaches.put(gradleCachePath, versionEntries);
+	}
+
+	private void _removeSourceJarPaths(
+		Path versionDirPath, VersionEntry versionEntry) {
+
+		for (FileEntry fileEntry : versionEntry._fileEntries) {
+			_sourceJarPaths.remove(versionDirPath.resolve(fileEntry._path));
+		}
+	}
+
+	public static class Artifact {
+
+		public Path getJarPath() {
+			return _jarPath;
+		}
+
+		public long getLastModifiedTime() {
+			return _lastModifiedTime;
+		}
+
+		public Path getPomPath() {
+			return _pomPath;
+		}
+
+		public long getSize() {
+			return _size;
+		}
+
+		public Path getSourceJarPath() {
+			return _sourceJarPath;
+		}
+
+		private Path _jarPath;
+		private long _lastModifiedTime;
+		private Path _pomPath;
+		private long _size;
+		private Path _sourceJarPath;
+
+	}
+
+	private static class FileEntry {
+
+		private FileEntry(String path, long size, long lastModifiedTime) {
+			_path = path;
+			_size = size;
+			_lastModifiedTime = lastModifiedTime;
+		}
+
+		private String _getFileName() {
+			return _path.substring(_path.indexOf('/') + 1);
+		}
+
+		private final long _lastModifiedTime;
+		private final String _path;
+		private final long _size;
+
+	}
+
+	private static class VersionEntry {
+
+		private VersionEntry(long lastModifiedTime) {
+			_lastModifiedTime = lastModifiedTime;
+		}
+
+		private final List<FileEntry> _fileEntries = new ArrayList<>();
+		private final long _lastModifiedTime;
+
+	}
+
+	private static final int _MAGIC = 0x4E424331;
+
+	private final Map<Path, Map<String, VersionEntry>> _gradleCaches =
+		new ConcurrentHashMap<>();
+	private boolean _modified;
+	private final Map<Path, Path> _sourceJarPaths = new ConcurrentHashMap<>();
+
+}
@@ -0,0 +1,584 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import java.io.IOException;
+
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Resolves the jar dependencies of a module straight from files-2.1 Gradle
+ * caches, without starting Gradle. The declarations of the module's
+ * build.gradle are looked up in the {@link GradleCacheIndex} of the caches,
+ * which maps them to files-2.1/group/name/version/hash/name-version.jar and
+ * its sources jar, in the order of the caches. Declarations in the provided
+ * configuration are not transitive, the dependencies of all other
+ * declarations are followed through the POM files in the caches.
+ *
+ * <p>
+ * A module is only resolved when every declaration can be resolved exactly,
+ * so Gradle still resolves modules with files(...) dependencies, dynamic or
+ * default versions, classifiers, extensions, transitive flags or closures on
+ * a declaration, missing artifacts, unknown configurations, transitive
+ * project dependencies and POMs with exclusions, classifiers or versions
+ * that are not spelled out in the POM, its parents or their dependency
+ * management. Two versions of the same artifact are left to Gradle's
+ * conflict resolution as well.
+ * </p>
+ *
+ * @author Tom Wang
+ */
+public class GradleCacheResolver {
+
+	public GradleCacheResolver(
+		List<Path> gradleCachePaths, GradleCacheIndex gradleCacheIndex) {
+
+		_gradleCachePaths = gradleCachePaths;
+		_gradleCacheIndex = gradleCacheIndex;
+	}
+
+	/**
+	 * Returns the dependency properties that dependency.gradle would print for
+	 * the module, or <code>null</code> when the module has to be resolved by
+	 * Gradle.
+	 */
+	public Properties resolve(Path modulePath, Set<String> symbolicNameSet)
+		throws IOException {
+
+		Map<String, String> compileVersions = new HashMap<>();
+		Set<Path> compileJarPaths = new LinkedHashSet<>();
+		Set<Path> compileSourceJarPaths = new LinkedHashSet<>();
+		Map<String, String> testVersions = new HashMap<>();
+		Set<Path> testJarPaths = new LinkedHashSet<>();
+		Set<Path> testSourceJarPaths = new LinkedHashSet<>();
+
+		for (BuildGradleParser.Declaration declaration :
+				BuildGradleParser.parse(modulePath.resolve("build.gradle"))) {
+
+			String configuration = declaration.getConfiguration();
+
+			if (configuration == null) {
+				return null;
+			}
+
+			if (_ignoredConfigurations.contains(configuration)) {
+				continue;
+			}
+
+			boolean transitive = !configuration.equals("provided");
+
+			if (!_compileConfigurations.contains(configuration) &&
+				!_testConfigurations.contains(configuration) && transitive) {
+
+				return null;
+			}
+
+			if (declaration.isFiles() || declaration.hasClosure() ||
+				(declaration.getClassifier() != null) ||
+				(declaration.getExtension() != null) ||
+				!declaration.isTransitive()) {
+
+				return null;
+			}
+
+			if ((declaration.getProjectPath() != null) ||
+				symbolicNameSet.contains(declaration.getName())) {
+
+				if (transitive) {
+					return null;
+				}
+
+				continue;
+			}
+
+			boolean resolved = false;
+
+			if (declaration.isTest()) {
+				resolved = _resolve(
+					declaration.getGroup(), declaration.getName(),
+					declaration.getVersion(), transitive, testJarPaths,
+					testSourceJarPaths, testVersions);
+			}
+			else {
+				resolved = _resolve(
+					declaration.getGroup(), declaration.getName(),
+					declaration.getVersion(), transitive, compileJarPaths,
+					compileSourceJarPaths, compileVersions);
+			}
+
+			if (!resolved) {
+				return null;
+			}
+		}
+
+		for (Map.Entry<String, String> entry : compileVersions.entrySet()) {
+			String testVersion = testVersions.get(entry.getKey());
+
+			if ((testVersion != null) &&
+				!testVersion.equals(entry.getValue())) {
+
+				return null;
+			}
+		}
+
+		testJarPaths.addAll(compileJarPaths);
+		testSourceJarPaths.addAll(compileSourceJarPaths);
+
+		Properties properties = new Properties();
+
+		properties.setProperty("compile", _join(compileJarPaths));
+		properties.setProperty("compileSources", _join(compileSourceJarPaths));
+		properties.setProperty("compileTest", _join(testJarPaths));
+		properties.setProperty(
+			"testIntegrationRuntimeSources", _join(testSourceJarPaths));
+
+		return properties;
+	}
+
+	private static Element _getChildElement(Element element, String tagName) {
+		for (Node node = element.getFirstChild(); node != null;
+			 node = node.getNextSibling()) {
+
+			if ((node instanceof Element) &&
+				tagName.equals(((Element)node).getTagName())) {
+
+				return (Element)node;
+			}
+		}
+
+		return null;
+	}
+
+	private static List<Element> _getChildElements(
+		Element element, String tagName) {
+
+		List<Element> childElements = new ArrayList<>();
+
+		if (element == null) {
+			return childElements;
+		}
+
+		for (Node node = element.getFirstChild(); node != null;
+			 node = node.getNextSibling()) {
+
+			if ((node instanceof Element) &&
+				((tagName == null) ||
+				 tagName.equals(((Element)node).getTagName()))) {
+
+				childElements.add((Element)node);
+			}
+		}
+
+		return childElements;
+	}
+
+	private static String _getChildText(Element element, String tagName) {
+		Element childElement = _getChildElement(element, tagName);
+
+		if (childElement == null) {
+			return null;
+		}
+
+		return childElement.getTextContent().trim();
+	}
+
+	private static boolean _isFixedVersion(String version) {
+		if ((version == null) || version.isEmpty() ||
+			version.equals("default") || version.startsWith("latest.") ||
+			version.endsWith("+") || (version.indexOf('$') >= 0) ||
+			(version.indexOf('[') >= 0) || (version.indexOf('(') >= 0)) {
+
+			return false;
+		}
+
+		return true;
+	}
+
+	private static String _join(Set<Path> paths) {
+		StringBuilder sb = new StringBuilder();
+
+		for (Path path : paths) {
+			sb.append(path);
+			sb.append(':');
+		}
+
+		return sb.toString();
+	}
+
+	private static String _replaceProperties(
+		String s, Map<String, String> properties) {
+
+		if (s == null) {
+			return null;
+		}
+
+		int depth = 0;
+
+		while (s.contains("${") && (depth++ < 10)) {
+			int start = s.indexOf("${");
+
+			int end = s.indexOf('}', start);
+
+			if (end < 0) {
+				return null;
+			}
+
+			String value = properties.get(s.substring(start + 2, end));
+
+			if (value == null) {
+				return null;
+			}
+
+			s = s.substring(0, start) + value + s.substring(end + 1);
+		}
+
+		if (s.contains("${")) {
+			return null;
+		}
+
+		return s;
+	}
+
+	private Artifact _getArtifact(String group, String name, String version) {
+		String coordinates = group + ':' + name + ':' + version;
+
+		Artifact artifact = _artifacts.get(coordinates);
+
+		if (artifact != null) {
+			return artifact;
+		}
+
+		artifact = new Artifact();
+
+		for (Path gradleCachePath : _gradleCachePaths) {
+			GradleCacheIndex.Artifact indexedArtifact =
+				_gradleCacheIndex.getArtifact(
+					gradleCachePath, group, name, version);
+
+			if (indexedArtifact == null) {
+				continue;
+			}
+
+			if (artifact._jarPath == null) {
+				artifact._jarPath = indexedArtifact.getJarPath();
+			}
+
+			if (artifact._pomPath == null) {
+				artifact._pomPath = indexedArtifact.getPomPath();
+			}
+
+			if (artifact._sourceJarPath == null) {
+				artifact._sourceJarPath = indexedArtifact.getSourceJarPath();
+			}
+		}
+
+		_artifacts.put(coordinates, artifact);
+
+		return artifact;
+	}
+
+	/**
+	 * Returns the dependencies of an artifact that end up on the compile
+	 * classpath, as group, name and version triples, or <code>null</code> when
+	 * its POM cannot be read completely.
+	 */
+	private List<String[]> _getDependencies(
+			String group, String name, String version)
+		throws IOException {
+
+		Artifact artifact = _getArtifact(group, name, version);
+
+		if (artifact._dependenciesLoaded) {
+			return artifact._dependencies;
+		}
+
+		List<String[]> dependencies = null;
+
+		Pom pom = _getPom(group, name, version, 0);
+
+		if (pom != null) {
+			dependencies = new ArrayList<>();
+
+			for (Element dependencyElement : pom._dependencyElements) {
+				String scope = _getChildText(dependencyElement, "scope");
+
+				if (((scope != null) && !scope.equals("compile") &&
+					 !scope.equals("runtime")) ||
+					"true".equals(
+						_getChildText(dependencyElement, "optional"))) {
+
+					continue;
+				}
+
+				String type = _getChildText(dependencyElement, "type");
+
+				if (((type != null) && !type.equals("jar") &&
+					 !type.equals("bundle")) ||
+					(_getChildElement(dependencyElement, "classifier") !=
+						null) ||
+					(_getChildElement(dependencyElement, "exclusions") !=
+						null)) {
+
+					dependencies = null;
+
+					break;
+				}
+
+				String dependencyGroup = _replaceProperties(
+					_getChildText(dependencyElement, "groupId"),
+					pom._properties);
+				String dependencyName = _replaceProperties(
+					_getChildText(dependencyElement, "artifactId"),
+					pom._properties);
+
+				String dependencyVersion = _getChildText(
+					dependencyElement, "version");
+
+				if (dependencyVersion == null) {
+					dependencyVersion = pom._managedVersions.get(
+						dependencyGroup + ':' + dependencyName);
+				}
+
+				dependencyVersion = _replaceProperties(
+					dependencyVersion, pom._properties);
+
+				if ((dependencyGroup == null) || (dependencyName == null) ||
+					!_isFixedVersion(dependencyVersion)) {
+
+					dependencies = null;
+
+					break;
+				}
+
+				dependencies.add(
+					new String[] {
+						dependencyGroup, dependencyName, dependencyVersion
+					});
+			}
+		}
+
+		artifact._dependencies = dependencies;
+		artifact._dependenciesLoaded = true;
+
+		return dependencies;
+	}
+
+	/**
+	 * Reads a POM together with its parents. Dependencies, managed versions
+	 * and properties of the parents are inherited unless the POM overrides
+	 * them.
+	 */
+	private Pom _getPom(String group, String name, String version, int depth)
+		throws IOException {
+
+		Artifact artifact = _getArtifact(group, name, version);
+
+		if ((artifact._pomPath == null) || (depth > 10)) {
+			return null;
+		}
+
+		Element projectElement = null;
+
+		try {
+			DocumentBuilder documentBuilder =
+				_documentBuilderFactory.newDocumentBuilder();
+
+			Document document = documentBuilder.parse(
+				artifact._pomPath.toFile());
+
+			projectElement = document.getDocumentElement();
+		}
+		catch (Exception e) {
+			return null;
+		}
+
+		Pom pom = new Pom();
+
+		Element parentElement = _getChildElement(projectElement, "parent");
+
+		if (parentElement != null) {
+			String parentGroup = _getChildText(parentElement, "groupId");
+			String parentName = _getChildText(parentElement, "artifactId");
+			String parentVersion = _getChildText(parentElement, "version");
+
+			if ((parentGroup == null) || (parentName == null) ||
+				!_isFixedVersion(parentVersion)) {
+
+				return null;
+			}
+
+			Pom parentPom = _getPom(
+				parentGroup, parentName, parentVersion, depth + 1);
+
+			if (parentPom == null) {
+				return null;
+			}
+
+			pom._dependencyElements.addAll(parentPom._dependencyElements);
+			pom._managedVersions.putAll(parentPom._managedVersions);
+			pom._properties.putAll(parentPom._properties);
+
+			pom._properties.put("parent.groupId", parentGroup);
+			pom._properties.put("parent.version", parentVersion);
+			pom._properties.put("project.parent.groupId", parentGroup);
+			pom._properties.put("project.parent.version", parentVersion);
+		}
+
+		for (Element propertyElement : _getChildElements(
+				_getChildElement(projectElement, "properties"), null)) {
+
+			pom._properties.put(
+				propertyElement.getTagName(),
+				propertyElement.getTextContent().trim());
+		}
+
+		pom._properties.put("groupId", group);
+		pom._properties.put("project.groupId", group);
+		pom._properties.put("project.version", version);
+		pom._properties.put("version", version);
+
+		Element dependencyManagementElement = _getChildElement(
+			projectElement, "dependencyManagement");
+
+		if (dependencyManagementElement != null) {
+			for (Element dependencyElement : _getChildElements(
+					_getChildElement(
+						dependencyManagementElement, "dependencies"),
+					"dependency")) {
+
+				String dependencyVersion = _getChildText(
+					dependencyElement, "version");
+
+				if (dependencyVersion != null) {
+					pom._managedVersions.put(
+						_getChildText(dependencyElement, "groupId") + ':' +
+							_getChildText(dependencyElement, "artifactId"),
+						dependencyVersion);
+				}
+			}
+		}
+
+		pom._dependencyElements.addAll(
+			_getChildElements(
+				_getChildElement(projectElement, "dependencies"),
+				"dependency"));
+
+		return pom;
+	}
+
+	private boolean _resolve(
+			String group, String name, String version, boolean transitive,
+			Set<Path> jarPaths, Set<Path> sourceJarPaths,
+			Map<String, String> versions)
+		throws IOException {
+
+		if ((group == null) || (name == null) || !_isFixedVersion(version)) {
+			return false;
+		}
+
+		String previousVersion = versions.put(group + ':' + name, version);
+
+		if (previousVersion != null) {
+			return previousVersion.equals(version);
+		}
+
+		Artifact artifact = _getArtifact(group, name, version);
+
+		if (artifact._jarPath == null) {
+			return false;
+		}
+
+		jarPaths.add(artifact._jarPath);
+
+		if (artifact._sourceJarPath != null) {
+			sourceJarPaths.add(artifact._sourceJarPath);
+		}
+
+		if (!transitive) {
+			return true;
+		}
+
+		List<String[]> dependencies = _getDependencies(group, name, version);
+
+		if (dependencies == null) {
+			return false;
+		}
+
+		for (String[] dependency : dependencies) {
+			if (!_resolve(
+					dependency[0], dependency[1], dependency[2], true,
+					jarPaths, sourceJarPaths, versions)) {
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static class Artifact {
+
+		private List<String[]> _dependencies;
+		private boolean _dependenciesLoaded;
+		private Path _jarPath;
+		private Path _pomPath;
+		private Path _sourceJarPath;
+
+	}
+
+	private static class Pom {
+
+		private final List<Element> _dependencyElements = new ArrayList<>();
+		private final Map<String, String> _managedVersions = new HashMap<>();
+		private final Map<String, String> _properties = new HashMap<>();
+
+	}
+
+	private static final Set<String> _compileConfigurations = new HashSet<>(
+		Arrays.asList("compile", "compileInclude"));
+	private static final DocumentBuilderFactory _documentBuilderFactory =
+		DocumentBuilderFactory.newInstance();
+	private static final Set<String> _ignoredConfigurations = new HashSet<>(
+		Arrays.asList(
+			"classpath", "compileOnly", "cssBuilder", "jspC",
+			"portalCommonCSS", "testCompileOnly"));
+	private static final Set<String> _testConfigurations = new HashSet<>(
+		Arrays.asList(
+			"testCompile", "testIntegrationCompile",
+			"testIntegrationRuntime", "testRuntime"));
+
+	private final Map<String, Artifact> _artifacts = new ConcurrentHashMap<>();
+	private final GradleCacheIndex _gradleCacheIndex;
+	private final List<Path> _gradleCachePaths;
+
+}
@@ -15,18 +15,32 @@
 package com.liferay.netbeansproject.util;
 
 import com.liferay.netbeansproject.container.Dependency;
+import com.liferay.netbeansproject.container.DependencyPool;
+import com.liferay.netbeansproject.jfr.GradleProcessEvent;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 
-import java.nio.file.DirectoryStream;
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -39,17 +53,20 @@ import java.util.Set;
  */
 public class GradleUtil {
 
-	public static Map<String, Set<Dependency>> getJarDependencies(
-			Path portalDirPath, Path workDirPath, Set<String> symbolicNameSet,
-			boolean displayGradleProcessOutput, boolean daemon)
+	/**
+	 * Runs printDependencies for the work directories and returns the
+	 * dependency properties by project name. Gradle prints one dependency
+	 * record per project as soon as the project is resolved, and each record
+	 * is passed to the dependency listener, if any, while Gradle is still
+	 * resolving the other projects.
+	 */
+	public static Map<String, Properties> getDependencyProperties(
+			Path portalDirPath, Collection<Path> workDirPaths,
+			boolean displayGradleProcessOutput, boolean daemon,
+			boolean linkGradleCache, MetricsRegistry metricsRegistry,
+			DependencyListener dependencyListener)
 		throws Exception {
 
-		Path dependenciesDirPath = Files.createTempDirectory(null);
-
-		FileUtil.delete(dependenciesDirPath);
-
-		Files.createDirectories(dependenciesDirPath);
-
 		List<String> gradleTask = new ArrayList<>();
 
 		gradleTask.add(String.valueOf(portalDirPath.resolve("gradlew")));
@@ -59,19 +76,30 @@ public class GradleUtil {
 		}
 
 		gradleTask.add("--parallel");
+
+		List<String> taskNames = new ArrayList<>(workDirPaths.size());
+
+		for (Path workDirPath : workDirPaths) {
+			taskNames.add(_getTaskName(portalDirPath, workDirPath));
+		}
+
+		if (!taskNames.contains("printDependencies")) {
+			gradleTask.add("--configure-on-demand");
+		}
+
 		gradleTask.add("--init-script=dependency.gradle");
 		gradleTask.add("-p");
 		gradleTask.add(String.valueOf(portalDirPath.resolve("modules")));
-		gradleTask.add(_getTaskName(portalDirPath, workDirPath));
-		gradleTask.add(
-			"-PdependencyDirectory=".concat(dependenciesDirPath.toString()));
+		gradleTask.addAll(taskNames);
 		gradleTask.add("-g");
 
 		Path gradleCachePath = Paths.get(".gradle");
 
-		FileUtil.copy(
-			portalDirPath.resolve(".gradle/caches/modules-2/files-2.1"),
-			gradleCachePath.resolve("caches/modules-2/files-2.1"));
+		synchronized (_gradleCacheLock) {
+			_provisionGradleCache(
+				portalDirPath.resolve(".gradle/caches/modules-2/files-2.1"),
+				gradleCachePath.resolve("caches/modules-2"), linkGradleCache);
+		}
 
 		gradleTask.add(String.valueOf(gradleCachePath));
 
@@ -81,69 +109,93 @@ public class GradleUtil {
 
 		env.put("GRADLE_OPTS", "-Xmx2g");
 
-		Process process = processBuilder.start();
+		int projectCount = -1;
 
-		if (displayGradleProcessOutput) {
-			String line = null;
+		if (!taskNames.contains("printDependencies")) {
+			projectCount = taskNames.size();
+		}
 
-			try(
-				BufferedReader br = new BufferedReader(
-					new InputStreamReader(process.getInputStream()))) {
+		ProgressLineListener progressLineListener = new ProgressLineListener(
+			projectCount, metricsRegistry, dependencyListener);
 
-				while ((line = br.readLine()) != null) {
-					System.out.println(line);
-				}
-			}
+		_runGradle(
+			portalDirPath, processBuilder, displayGradleProcessOutput,
+			progressLineListener);
 
-			try(
-				BufferedReader br = new BufferedReader(
-					new InputStreamReader(process.getErrorStream()))) {
+		progressLineListener.printSummary();
 
-				while ((line = br.readLine()) != null) {
-					System.out.println(line);
-				}
-			}
-		}
+		return progressLineListener.getDependencyPropertiesMap();
+	}
 
-		int exitCode = process.waitFor();
+	public static Map<String, Set<Dependency>> getJarDependencies(
+			Path portalDirPath, Collection<Path> workDirPaths,
+			Set<String> symbolicNameSet, boolean displayGradleProcessOutput,
+			boolean daemon)
+		throws Exception {
 
-		if (exitCode != 0) {
-			throw new IOException(
-				"Process " + processBuilder.command() + " failed with " +
-					exitCode);
-		}
+		Map<String, Properties> dependencyPropertiesMap =
+			getDependencyProperties(
+				portalDirPath, workDirPaths, displayGradleProcessOutput,
+				daemon, true, null, null);
 
 		Map<String, Set<Dependency>> dependenciesMap = new HashMap<>();
 
-		try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(
-				dependenciesDirPath)) {
+		for (Map.Entry<String, Properties> entry :
+				dependencyPropertiesMap.entrySet()) {
+
+			dependenciesMap.put(
+				entry.getKey(),
+				getJarDependencies(
+					entry.getValue(), portalDirPath, symbolicNameSet));
+		}
 
-			String portalToolsPath = String.valueOf(
-				portalDirPath.resolve("tools/sdk"));
+		return dependenciesMap;
+	}
 
-			for (Path dependencyPath : directoryStream) {
-				Set<Dependency> jarDependencies = new HashSet<>();
+	public static Set<Dependency> getJarDependencies(
+		Properties dependencyProperties, Path portalDirPath,
+		Set<String> symbolicNameSet) {
 
-				jarDependencies.addAll(
-					_getConfigurationDependencies(
-						dependencyPath, "compile", "compileSources", false,
-						portalToolsPath, symbolicNameSet));
+		return getJarDependencies(
+			dependencyProperties, portalDirPath, symbolicNameSet, null);
+	}
 
-				jarDependencies.addAll(
-					_getConfigurationDependencies(
-						dependencyPath, "compileTest",
-						"testIntegrationRuntimeSources", true, portalToolsPath,
-						symbolicNameSet));
+	/**
+	 * Returns the jar dependencies of the dependency properties. Sources jars
+	 * are looked up in the Gradle cache index first, and in the sources that
+	 * Gradle printed for the jars the index does not know.
+	 */
+	public static Set<Dependency> getJarDependencies(
+		Properties dependencyProperties, Path portalDirPath,
+		Set<String> symbolicNameSet, GradleCacheIndex gradleCacheIndex) {
 
-				dependenciesMap.put(
-					String.valueOf(dependencyPath.getFileName()),
-					jarDependencies);
-			}
-		}
+		String portalToolsPath = String.valueOf(
+			portalDirPath.resolve("tools/sdk"));
+
+		Set<Dependency> jarDependencies = new HashSet<>();
 
-		FileUtil.delete(dependenciesDirPath);
+		jarDependencies.addAll(
+			_getConfigurationDependencies(
+				dependencyProperties, "compile", "compileSources", false,
+				portalToolsPath, symbolicNameSet, gradleCacheIndex));
 
-		return dependenciesMap;
+		jarDependencies.addAll(
+			_getConfigurationDependencies(
+				dependencyProperties, "compileTest",
+				"testIntegrationRuntimeSources", true, portalToolsPath,
+				symbolicNameSet, gradleCacheIndex));
+
+		return jarDependencies;
+	}
+
+	public static Map<String, Set<Dependency>> getJarDependencies(
+			Path portalDirPath, Path workDirPath, Set<String> symbolicNameSet,
+			boolean displayGradleProcessOutput, boolean daemon)
+		throws Exception {
+
+		return getJarDependencies(
+			portalDirPath, Collections.singletonList(workDirPath),
+			symbolicNameSet, displayGradleProcessOutput, daemon);
 	}
 
 	public static Set<Dependency> getModuleDependencies(
@@ -156,39 +208,39 @@ public class GradleUtil {
 			return Collections.emptySet();
 		}
 
-		Set<Dependency> moduleDependencies = new HashSet<>();
+		Map<Path, Dependency> moduleDependencies = new HashMap<>();
+
+		for (BuildGradleParser.Declaration declaration :
+				BuildGradleParser.parse(buildGradlePath)) {
 
-		for (String line : Files.readAllLines(buildGradlePath)) {
 			Path moduleProjectPath = null;
 
-			if (line.contains(" project(") || line.contains(" project (")) {
+			if (declaration.getProjectPath() != null) {
 				moduleProjectPath = Paths.get(
 					"modules",
-					StringUtil.split(
-						StringUtil.extractQuotedText(line.trim()), ':'));
+					StringUtil.split(declaration.getProjectPath(), ':'));
 			}
-			else if (line.contains("name: \"com.liferay")) {
-				String[] split = StringUtil.split(line.trim(), ',');
-
-				String moduleSymbolicName = StringUtil.extractQuotedText(
-					split[1]);
-
-				moduleProjectPath = moduleProjectPaths.get(moduleSymbolicName);
-
-				if (moduleProjectPath == null) {
-					continue;
-				}
+			else if (declaration.getName() != null) {
+				moduleProjectPath = moduleProjectPaths.get(
+					declaration.getName());
 			}
-			else {
+
+			if (moduleProjectPath == null) {
 				continue;
 			}
 
-			moduleDependencies.add(
-				new Dependency(
-					moduleProjectPath, null, line.startsWith("test")));
+			Dependency moduleDependency = moduleDependencies.get(
+				moduleProjectPath);
+
+			if ((moduleDependency == null) || moduleDependency.isTest()) {
+				moduleDependencies.put(
+					moduleProjectPath,
+					DependencyPool.getDependency(
+						moduleProjectPath, null, declaration.isTest()));
+			}
 		}
 
-		return moduleDependencies;
+		return new HashSet<>(moduleDependencies.values());
 	}
 
 	public static void stopGradleDaemon(
@@ -203,60 +255,44 @@ public class GradleUtil {
 
 		ProcessBuilder processBuilder = new ProcessBuilder(gradleTask);
 
-		Process process = processBuilder.start();
-
-		if (displayGradleProcessOutput) {
-			String line = null;
-
-			try(
-				BufferedReader br = new BufferedReader(
-					new InputStreamReader(process.getInputStream()))) {
-
-				while ((line = br.readLine()) != null) {
-					System.out.println(line);
-				}
-			}
-
-			try(
-				BufferedReader br = new BufferedReader(
-					new InputStreamReader(process.getErrorStream()))) {
+		_runGradle(
+			portalDirPath, processBuilder, displayGradleProcessOutput, null);
+	}
 
-				while ((line = br.readLine()) != null) {
-					System.out.println(line);
-				}
-			}
-		}
+	public interface DependencyListener {
 
-		int exitCode = process.waitFor();
+		/**
+		 * Called on the thread reading the Gradle output for every project
+		 * with dependencies, as soon as Gradle has resolved it.
+		 * Implementations should hand off any expensive work.
+		 */
+		public void onDependencies(
+			String projectName, Properties dependencyProperties);
 
-		if (exitCode != 0) {
-			throw new IOException(
-				"Process " + processBuilder.command() + " failed with " +
-					exitCode);
-		}
 	}
 
 	private static Set<Dependency> _getConfigurationDependencies(
-			Path dependencyPath, String configurationName, String sourceName,
-			boolean isTest, String portalToolsPath, Set<String> symbolicNameSet)
-		throws IOException {
+		Properties dependencies, String configurationName, String sourceName,
+		boolean isTest, String portalToolsPath, Set<String> symbolicNameSet,
+		GradleCacheIndex gradleCacheIndex) {
 
-		Properties dependencies = PropertiesUtil.loadProperties(dependencyPath);
+		String jars = dependencies.getProperty(configurationName);
 
-		Map<String, Path> sourceJarPaths = _loadSourceJarPaths(
-			dependencies.getProperty(sourceName));
+		if (jars == null) {
+			return Collections.emptySet();
+		}
+
+		Map<String, Path> sourceJarPaths = null;
 
 		Set<Dependency> jarDependencies = new HashSet<>();
 
-		for (String jar :
-				StringUtil.split(
-					dependencies.getProperty(configurationName), ':')) {
+		for (String jar : StringUtil.split(jars, ':')) {
 
 			if (jar.startsWith(portalToolsPath)) {
 				continue;
 			}
 
-			Path jarPath = Paths.get(jar);
+			Path jarPath = DependencyPool.getPath(jar);
 
 			String jarName = String.valueOf(jarPath.getFileName());
 
@@ -268,16 +304,90 @@ public class GradleUtil {
 				}
 			}
 
+			Path sourceJarPath = null;
+
+			if ((gradleCacheIndex != null) && !_isSourceJarIgnored(jarName)) {
+				sourceJarPath = gradleCacheIndex.getSourceJarPath(jarPath);
+			}
+
+			if (sourceJarPath == null) {
+				if (sourceJarPaths == null) {
+					sourceJarPaths = _loadSourceJarPaths(
+						dependencies.getProperty(sourceName));
+				}
+
+				sourceJarPath = sourceJarPaths.get(jarName);
+			}
+
 			jarDependencies.add(
-				new Dependency(
-					jarPath, sourceJarPaths.get(
-						String.valueOf(jarPath.getFileName())),
-					isTest));
+				DependencyPool.getDependency(jarPath, sourceJarPath, isTest));
 		}
 
 		return jarDependencies;
 	}
 
+	/**
+	 * Returns a digest of the relative paths and modification times of the
+	 * group, module and version directories of a files-2.1 cache. Gradle
+	 * stores every artifact file in its own hash directory below the version
+	 * directory, so any added artifact changes this digest.
+	 */
+	private static String _getGradleCacheManifest(final Path gradleCachePath)
+		throws IOException {
+
+		final List<String> entries = new ArrayList<>();
+
+		Files.walkFileTree(
+			gradleCachePath, Collections.<FileVisitOption>emptySet(), 3,
+			new SimpleFileVisitor<Path>() {
+
+				@Override
+				public FileVisitResult preVisitDirectory(
+					Path path, BasicFileAttributes basicFileAttributes) {
+
+					_addEntry(path, basicFileAttributes);
+
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(
+					Path path, BasicFileAttributes basicFileAttributes) {
+
+					_addEntry(path, basicFileAttributes);
+
+					return FileVisitResult.CONTINUE;
+				}
+
+				private void _addEntry(
+					Path path, BasicFileAttributes basicFileAttributes) {
+
+					FileTime fileTime = basicFileAttributes.lastModifiedTime();
+
+					entries.add(
+						gradleCachePath.relativize(path) + "=" +
+							fileTime.toMillis());
+				}
+
+			});
+
+		Collections.sort(entries);
+
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+
+			for (String entry : entries) {
+				messageDigest.update(entry.getBytes(StandardCharsets.UTF_8));
+				messageDigest.update((byte)'\n');
+			}
+
+			return StringUtil.bytesToHexString(messageDigest.digest());
+		}
+		catch (NoSuchAlgorithmException nsae) {
+			throw new Error(nsae);
+		}
+	}
+
 	private static String _getTaskName(Path portalDirPath, Path workDirPath) {
 		Path modulesPath = portalDirPath.resolve("modules");
 
@@ -294,16 +404,70 @@ public class GradleUtil {
 		return relativeWorkPathString.concat(":").concat("printDependencies");
 	}
 
+	private static void _provisionGradleCache(
+			Path sourceGradleCachePath, Path targetModulesPath,
+			boolean linkGradleCache)
+		throws IOException {
+
+		Path manifestPath = targetModulesPath.resolve(
+			"files-2.1-manifest.properties");
+
+		Properties manifestProperties = new Properties();
+
+		if (Files.exists(manifestPath)) {
+			manifestProperties = PropertiesUtil.loadProperties(manifestPath);
+		}
+
+		String sourceGradleCache = String.valueOf(
+			sourceGradleCachePath.toAbsolutePath());
+
+		String manifest = _getGradleCacheManifest(sourceGradleCachePath);
+
+		if (manifest.equals(
+				manifestProperties.getProperty(sourceGradleCache))) {
+
+			return;
+		}
+
+		Path targetGradleCachePath = targetModulesPath.resolve("files-2.1");
+
+		if (linkGradleCache) {
+			FileUtil.link(sourceGradleCachePath, targetGradleCachePath);
+		}
+		else {
+			FileUtil.copy(sourceGradleCachePath, targetGradleCachePath);
+		}
+
+		manifestProperties.setProperty(sourceGradleCache, manifest);
+
+		try (Writer writer = Files.newBufferedWriter(manifestPath)) {
+			manifestProperties.store(writer, null);
+		}
+	}
+
+	private static boolean _isSourceJarIgnored(String fileName) {
+		if (fileName.startsWith("javax.portlet") ||
+			fileName.startsWith("javax.servlet")) {
+
+			return true;
+		}
+
+		return false;
+	}
+
 	private static Map<String, Path> _loadSourceJarPaths(String sources) {
 		Map<String, Path> sourceJarPaths = new HashMap<>();
 
+		if (sources == null) {
+			return sourceJarPaths;
+		}
+
 		for (String sourceJarLocation : StringUtil.split(sources, ':')) {
-			Path path = Paths.get(sourceJarLocation);
+			Path path = DependencyPool.getPath(sourceJarLocation);
 
 			String fileName = String.valueOf(path.getFileName());
 
-			if (!fileName.startsWith("javax.portlet") &&
-				!fileName.startsWith("javax.servlet")) {
+			if (!_isSourceJarIgnored(fileName)) {
 
 				sourceJarPaths.put(
 					StringUtil.replace(fileName, "-sources.jar", ".jar"), path);
@@ -313,4 +477,220 @@ public class GradleUtil {
 		return sourceJarPaths;
 	}
 
+	/**
+	 * Starts the Gradle process and waits for it to exit, recording it as a
+	 * flight recorder event with its command and exit code.
+	 */
+	private static void _runGradle(
+			Path portalDirPath, ProcessBuilder processBuilder,
+			boolean displayGradleProcessOutput,
+			ProgressLineListener progressLineListener)
+		throws Exception {
+
+		GradleProcessEvent gradleProcessEvent = new GradleProcessEvent();
+
+		gradleProcessEvent.begin();
+
+		Process process = processBuilder.start();
+
+		try {
+			ProcessUtil.waitFor(
+				processBuilder, process, displayGradleProcessOutput,
+				progressLineListener);
+		}
+		finally {
+			if (gradleProcessEvent.shouldCommit()) {
+				gradleProcessEvent.setCommand(
+					StringUtil.merge(processBuilder.command(), ' '));
+
+				if (process.isAlive()) {
+					gradleProcessEvent.setExitCode(-1);
+				}
+				else {
+					gradleProcessEvent.setExitCode(process.exitValue());
+				}
+
+				gradleProcessEvent.setPortal(String.valueOf(portalDirPath));
+
+				if (progressLineListener != null) {
+					gradleProcessEvent.setProjectCount(
+						progressLineListener.getProjectCount());
+				}
+
+				gradleProcessEvent.commit();
+			}
+		}
+	}
+
+	private static class ProgressLineListener
+		implements ProcessUtil.LineListener {
+
+		public synchronized Map<String, Properties>
+			getDependencyPropertiesMap() {
+
+			return new HashMap<>(_dependencyPropertiesMap);
+		}
+
+		public synchronized int getProjectCount() {
+			return _projectTimes.size();
+		}
+
+		@Override
+		public void onLine(String line) {
+			if (line.startsWith(_DEPENDENCIES_PREFIX)) {
+				_onDependencies(line);
+
+				return;
+			}
+
+			if (!line.startsWith(_PREFIX)) {
+				return;
+			}
+
+			String[] parts = StringUtil.split(
+				line.substring(_PREFIX.length()), ' ');
+
+			if (parts.length != 2) {
+				return;
+			}
+
+			long time = 0;
+
+			try {
+				time = Long.parseLong(parts[1]);
+			}
+			catch (NumberFormatException nfe) {
+				return;
+			}
+
+			int count = 0;
+
+			synchronized (this) {
+				_projectTimes.put(parts[0], time);
+
+				count = _projectTimes.size();
+			}
+
+			if (_metricsRegistry != null) {
+				_metricsRegistry.recordModuleTime(
+					"gradleResolution", parts[0], time * 1000000);
+			}
+
+			if (_projectCount > 0) {
+				if (((count * 10 / _projectCount) !=
+						((count - 1) * 10 / _projectCount)) ||
+					(count == _projectCount)) {
+
+					System.out.println(
+						"Resolved " + count + " of " + _projectCount +
+							" projects, last " + parts[0] + " in " + time +
+								" ms");
+				}
+			}
+			else if ((count % 100) == 0) {
+				System.out.println("Resolved " + count + " projects");
+			}
+		}
+
+		public synchronized void printSummary() {
+			if (_projectTimes.isEmpty()) {
+				return;
+			}
+
+			List<Map.Entry<String, Long>> entries = new ArrayList<>(
+				_projectTimes.entrySet());
+
+			Collections.sort(
+				entries,
+				new Comparator<Map.Entry<String, Long>>() {
+
+					@Override
+					public int compare(
+						Map.Entry<String, Long> entry1,
+						Map.Entry<String, Long> entry2) {
+
+						return Long.compare(
+							entry2.getValue(), entry1.getValue());
+					}
+
+				});
+
+			long totalTime = 0;
+
+			for (Map.Entry<String, Long> entry : entries) {
+				totalTime += entry.getValue();
+			}
+
+			System.out.println(
+				"Resolved " + entries.size() + " projects in " + totalTime +
+					" ms of task time, slowest:");
+
+			for (Map.Entry<String, Long> entry :
+					entries.subList(0, Math.min(5, entries.size()))) {
+
+				System.out.println(
+					"\t" + entry.getKey() + " " + entry.getValue() + " ms");
+			}
+		}
+
+		private ProgressLineListener(
+			int projectCount, MetricsRegistry metricsRegistry,
+			DependencyListener dependencyListener) {
+
+			_projectCount = projectCount;
+			_metricsRegistry = metricsRegistry;
+			_dependencyListener = dependencyListener;
+		}
+
+		/**
+		 * Parses a dependency record, the project name followed by the lines
+		 * of its dependency properties, all separated by tabs.
+		 */
+		private void _onDependencies(String line) {
+			int index = line.indexOf('\t', _DEPENDENCIES_PREFIX.length());
+
+			if (index < 0) {
+				return;
+			}
+
+			String projectName = line.substring(
+				_DEPENDENCIES_PREFIX.length(), index);
+
+			Properties dependencyProperties = new Properties();
+
+			try {
+				dependencyProperties.load(
+					new StringReader(
+						line.substring(index + 1).replace('\t', '\n')));
+			}
+			catch (IOException ioe) {
+				throw new UncheckedIOException(ioe);
+			}
+
+			synchronized (this) {
+				_dependencyPropertiesMap.put(
+					projectName, dependencyProperties);
+			}
+
+			if (_dependencyListener != null) {
+				_dependencyListener.onDependencies(
+					projectName, dependencyProperties);
+			}
+		}
+
+		private static final String _DEPENDENCIES_PREFIX = "[dependencies]\t";
+
+		private static final String _PREFIX = "[printDependencies] ";
+
+		private final DependencyListener _dependencyListener;
+		private final Map<String, Properties> _dependencyPropertiesMap =
+			new HashMap<>();
+		private final MetricsRegistry _metricsRegistry;
+		private final int _projectCount;
+		private final Map<String, Long> _projectTimes = new HashMap<>();
+
+	}
+
+	private static final Object _gradleCacheLock = new Object();
+
 }
\ No newline at end of file
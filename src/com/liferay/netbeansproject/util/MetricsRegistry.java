@@ -0,0 +1,446 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import com.liferay.netbeansproject.jfr.PhaseEvent;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.time.Instant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the phase timers, counters and per-module time histograms of one
+ * run and reports them as a JSON document and as a human readable summary.
+ * Every method is safe to call from worker threads. Recorded phases are also
+ * emitted as flight recorder events that span from the previous recorded
+ * phase, or from the creation of the registry, to the end of the phase.
+ *
+ * @author Tom Wang
+ */
+public class MetricsRegistry {
+
+	public MetricsRegistry(String name) {
+		_name = name;
+
+		_phaseEvent.begin();
+	}
+
+	public void addCount(String name, long delta) {
+		AtomicLong counter = null;
+
+		synchronized (_counters) {
+			counter = _counters.get(name);
+
+			if (counter == null) {
+				counter = new AtomicLong();
+
+				_counters.put(name, counter);
+			}
+		}
+
+		counter.addAndGet(delta);
+	}
+
+	public long getCount(String name) {
+		synchronized (_counters) {
+			AtomicLong counter = _counters.get(name);
+
+			if (counter == null) {
+				return 0;
+			}
+
+			return counter.get();
+		}
+	}
+
+	public String getSummary() {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("Metrics for ");
+		sb.append(_name);
+		sb.append(", ");
+		sb.append(_formatMillis(System.nanoTime() - _startNanoTime));
+		sb.append(" ms total");
+
+		synchronized (_phaseTimes) {
+			for (Map.Entry<String, Long> entry : _phaseTimes.entrySet()) {
+				sb.append("\n\t");
+				sb.append(entry.getKey());
+				sb.append(' ');
+				sb.append(_formatMillis(entry.getValue()));
+				sb.append(" ms");
+			}
+		}
+
+		for (Map.Entry<String, Long> entry : _getCounts().entrySet()) {
+			sb.append("\n\t");
+			sb.append(entry.getKey());
+			sb.append(' ');
+			sb.append(entry.getValue());
+		}
+
+		for (Map.Entry<String, Histogram> entry :
+				_getHistograms().entrySet()) {
+
+			Histogram histogram = entry.getValue();
+
+			long[] times = histogram.getSortedTimes();
+
+			if (times.length == 0) {
+				continue;
+			}
+
+			sb.append("\n\t");
+			sb.append(entry.getKey());
+			sb.append(' ');
+			sb.append(times.length);
+			sb.append(" modules, p50 ");
+			sb.append(_formatMillis(_getPercentile(times, 50)));
+			sb.append(" ms, p90 ");
+			sb.append(_formatMillis(_getPercentile(times, 90)));
+			sb.append(" ms, p99 ");
+			sb.append(_formatMillis(_getPercentile(times, 99)));
+			sb.append(" ms, slowest");
+
+			for (Map.Entry<String, Long> moduleEntry :
+					histogram.getSlowestModuleTimes(_SUMMARY_SLOWEST_SIZE)) {
+
+				sb.append(' ');
+				sb.append(moduleEntry.getKey());
+				sb.append(' ');
+				sb.append(_formatMillis(moduleEntry.getValue()));
+				sb.append(" ms");
+			}
+		}
+
+		return sb.toString();
+	}
+
+	public void recordModuleTime(String name, String moduleName, long nanos) {
+		Histogram histogram = null;
+
+		synchronized (_histograms) {
+			histogram = _histograms.get(name);
+
+			if (histogram == null) {
+				histogram = new Histogram();
+
+				_histograms.put(name, histogram);
+			}
+		}
+
+		histogram.record(moduleName, nanos);
+	}
+
+	/**
+	 * Adds the time elapsed since the start time to the phase and returns
+	 * the current time, so consecutive phases can be timed by passing the
+	 * returned value on to the next call.
+	 */
+	public long recordPhase(String name, long startNanoTime) {
+		long nanoTime = System.nanoTime();
+
+		synchronized (_phaseTimes) {
+			Long phaseTime = _phaseTimes.get(name);
+
+			if (phaseTime == null) {
+				phaseTime = 0L;
+			}
+
+			_phaseTimes.put(name, phaseTime + nanoTime - startNanoTime);
+
+			if (_phaseEvent.shouldCommit()) {
+				_phaseEvent.setPhase(name);
+				_phaseEvent.setPortal(_name);
+
+				_phaseEvent.commit();
+			}
+
+			_phaseEvent = new PhaseEvent();
+
+			_phaseEvent.begin();
+		}
+
+		return nanoTime;
+	}
+
+	public void writeReport(Path reportPath) throws IOException {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("{\n\t\"name\": ");
+		_appendJSONString(sb, _name);
+		sb.append(",\n\t\"startTime\": ");
+		_appendJSONString(
+			sb, String.valueOf(Instant.ofEpochMilli(_startTimeMillis)));
+		sb.append(",\n\t\"durationMillis\": ");
+		sb.append(_formatMillis(System.nanoTime() - _startNanoTime));
+		sb.append(",\n\t\"phases\": {");
+
+		synchronized (_phaseTimes) {
+			_appendJSONMillis(sb, _phaseTimes);
+		}
+
+		sb.append("},\n\t\"counters\": {");
+
+		String separator = "\n\t\t";
+
+		for (Map.Entry<String, Long> entry : _getCounts().entrySet()) {
+			sb.append(separator);
+
+			_appendJSONString(sb, entry.getKey());
+
+			sb.append(": ");
+			sb.append(entry.getValue());
+
+			separator = ",\n\t\t";
+		}
+
+		sb.append("\n\t},\n\t\"histograms\": {");
+
+		separator = "\n\t\t";
+
+		for (Map.Entry<String, Histogram> entry :
+				_getHistograms().entrySet()) {
+
+			Histogram histogram = entry.getValue();
+
+			long[] times = histogram.getSortedTimes();
+
+			long totalTime = 0;
+
+			for (long time : times) {
+				totalTime += time;
+			}
+
+			sb.append(separator);
+
+			_appendJSONString(sb, entry.getKey());
+
+			sb.append(": {\n\t\t\t\"count\": ");
+			sb.append(times.length);
+			sb.append(",\n\t\t\t\"totalMillis\": ");
+			sb.append(_formatMillis(totalTime));
+
+			for (int percentile : _PERCENTILES) {
+				sb.append(",\n\t\t\t\"p");
+				sb.append(percentile);
+				sb.append("Millis\": ");
+				sb.append(_formatMillis(_getPercentile(times, percentile)));
+			}
+
+			sb.append(",\n\t\t\t\"maxMillis\": ");
+			sb.append(_formatMillis(_getPercentile(times, 100)));
+
+			sb.append(",\n\t\t\t\"slowest\": [");
+
+			String moduleSeparator = "\n\t\t\t\t";
+
+			for (Map.Entry<String, Long> moduleEntry :
+					histogram.getSlowestModuleTimes(_REPORT_SLOWEST_SIZE)) {
+
+				sb.append(moduleSeparator);
+				sb.append("{\"module\": ");
+
+				_appendJSONString(sb, moduleEntry.getKey());
+
+				sb.append(", \"millis\": ");
+				sb.append(_formatMillis(moduleEntry.getValue()));
+				sb.append('}');
+
+				moduleSeparator = ",\n\t\t\t\t";
+			}
+
+			sb.append("\n\t\t\t]\n\t\t}");
+
+			separator = ",\n\t\t";
+		}
+
+		sb.append("\n\t}\n}\n");
+
+		Files.createDirectories(reportPath.getParent());
+
+		Path tempReportPath = Files.createTempFile(
+			reportPath.getParent(), null, null);
+
+		try (Writer writer = Files.newBufferedWriter(tempReportPath)) {
+			writer.write(sb.toString());
+		}
+
+		Files.move(
+			tempReportPath, reportPath, StandardCopyOption.ATOMIC_MOVE,
+			StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static void _appendJSONMillis(
+		StringBuilder sb, Map<String, Long> nanoTimes) {
+
+		String separator = "\n\t\t";
+
+		for (Map.Entry<String, Long> entry : nanoTimes.entrySet()) {
+			sb.append(separator);
+
+			_appendJSONString(sb, entry.getKey());
+
+			sb.append(": ");
+			sb.append(_formatMillis(entry.getValue()));
+
+			separator = ",\n\t\t";
+		}
+
+		sb.append("\n\t");
+	}
+
+	private static void _appendJSONString(StringBuilder sb, String s) {
+		sb.append('"');
+
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+
+			if ((c == '"') || (c == '\\')) {
+				sb.append('\\');
+				sb.append(c);
+			}
+			else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int)c));
+			}
+			else {
+				sb.append(c);
+			}
+		}
+
+		sb.append('"');
+	}
+
+	private static String _formatMillis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1000000.0);
+	}
+
+	/**
+	 * Returns the nearest-rank percentile of the sorted times.
+	 */
+	private static long _getPercentile(long[] sortedTimes, int percentile) {
+		if (sortedTimes.length == 0) {
+			return 0;
+		}
+
+		int rank = (int)Math.ceil(percentile / 100.0 * sortedTimes.length);
+
+		return sortedTimes[Math.max(rank, 1) - 1];
+	}
+
+	private Map<String, Long> _getCounts() {
+		Map<String, Long> counts = new TreeMap<>();
+
+		synchronized (_counters) {
+			for (Map.Entry<String, AtomicLong> entry : _counters.entrySet()) {
+				counts.put(entry.getKey(), entry.getValue().get());
+			}
+		}
+
+		return counts;
+	}
+
+	private Map<String, Histogram> _getHistograms() {
+		synchronized (_histograms) {
+			return new TreeMap<>(_histograms);
+		}
+	}
+
+	private static class Histogram {
+
+		public synchronized List<Map.Entry<String, Long>>
+			getSlowestModuleTimes(int size) {
+
+			List<Map.Entry<String, Long>> entries = new ArrayList<>(
+				_moduleTimes.entrySet());
+
+			Collections.sort(
+				entries,
+				new Comparator<Map.Entry<String, Long>>() {
+
+					@Override
+					public int compare(
+						Map.Entry<String, Long> entry1,
+						Map.Entry<String, Long> entry2) {
+
+						return Long.compare(
+							entry2.getValue(), entry1.getValue());
+					}
+
+				});
+
+			return entries.subList(0, Math.min(size, entries.size()));
+		}
+
+		public synchronized long[] getSortedTimes() {
+			long[] times = new long[_moduleTimes.size()];
+
+			int i = 0;
+
+			for (long time : _moduleTimes.values()) {
+				times[i++] = time;
+			}
+
+			Arrays.sort(times);
+
+			return times;
+		}
+
+		public synchronized void record(String moduleName, long nanos) {
+			Long time = _moduleTimes.get(moduleName);
+
+			if (time == null) {
+				time = 0L;
+			}
+
+			_moduleTimes.put(moduleName, time + nanos);
+		}
+
+		private final Map<String, Long> _moduleTimes = new HashMap<>();
+
+	}
+
+	private static final int[] _PERCENTILES = {50, 90, 99};
+
+	private static final int _REPORT_SLOWEST_SIZE = 20;
+
+	private static final int _SUMMARY_SLOWEST_SIZE = 3;
+
+	private final Map<String, AtomicLong> _counters = new HashMap<>();
+	private final Map<String, Histogram> _histograms = new HashMap<>();
+	private final String _name;
+	private PhaseEvent _phaseEvent = new PhaseEvent();
+	private final Map<String, Long> _phaseTimes = new LinkedHashMap<>();
+	private final long _startNanoTime = System.nanoTime();
+	private final long _startTimeMillis = System.currentTimeMillis();
+
+}
@@ -15,6 +15,7 @@
 package com.liferay.netbeansproject.util;
 
 import com.liferay.netbeansproject.container.Dependency;
+import com.liferay.netbeansproject.container.Module;
 
 import java.io.IOException;
 
@@ -26,19 +27,61 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * @author Tom Wang
  */
 public class ModuleUtil {
 
+	/**
+	 * Groups the modules by the ancestor directory that is groupDepth - 1
+	 * levels above each module, stopping early at a directory whose parent
+	 * is one of the group stop words.
+	 */
+	public static Map<Path, List<Module>> createModuleGroups(
+		List<Module> modules, int groupDepth, List<String> groupStopWords) {
+
+		Map<Path, List<Module>> moduleGroups = new HashMap<>();
+
+		for (Module module : modules) {
+			Path groupPath = module.getModulePath();
+
+			for (int i = 1; i < groupDepth; i++) {
+				if (groupStopWords.contains(
+						String.valueOf(
+							groupPath.getName(groupPath.getNameCount() - 2)))) {
+
+					break;
+				}
+
+				groupPath = groupPath.getParent();
+			}
+
+			List<Module> moduleGroup = moduleGroups.get(groupPath);
+
+			if (moduleGroup == null) {
+				moduleGroup = new ArrayList<>();
+
+				moduleGroups.put(groupPath, moduleGroup);
+			}
+
+			moduleGroup.add(module);
+		}
+
+		return moduleGroups;
+	}
+
 	public static Set<Dependency> getPortalLibJars(Path portalPath)
 		throws IOException {
 
-		final Set<Dependency> jarSet = new HashSet<>();
+		final Set<Dependency> jarSet = new TreeSet<>();
 
 		Files.walkFileTree(
 			portalPath.resolve("lib"), EnumSet.allOf(FileVisitOption.class),
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author Shuyang Zhou
+ */
+public class ProcessUtil {
+
+	/**
+	 * Drains stdout and stderr of the process on one thread each, so that
+	 * neither pipe can fill up and stall the process, and waits for it to
+	 * exit. Every stdout line is passed to the line listener. A failed
+	 * process is reported with the last lines it printed. A failure of the
+	 * line listener or of reading the output does not stop the draining, the
+	 * first one is thrown once the process exited.
+	 */
+	public static void waitFor(
+			ProcessBuilder processBuilder, Process process,
+			boolean displayProcessOutput, LineListener lineListener)
+		throws Exception {
+
+		Deque<String> recentLines = new ArrayDeque<>(_RECENT_LINES_SIZE);
+
+		AtomicReference<Exception> exceptionReference =
+			new AtomicReference<>();
+
+		Thread stdoutThread = _pump(
+			process.getInputStream(), displayProcessOutput, lineListener,
+			recentLines, exceptionReference);
+		Thread stderrThread = _pump(
+			process.getErrorStream(), displayProcessOutput, null, recentLines,
+			exceptionReference);
+
+		int exitCode = process.waitFor();
+
+		stdoutThread.join();
+		stderrThread.join();
+
+		Exception exception = exceptionReference.get();
+
+		if (exitCode != 0) {
+			StringBuilder sb = new StringBuilder();
+
+			sb.append("Process ");
+			sb.append(processBuilder.command());
+			sb.append(" failed with ");
+			sb.append(exitCode);
+
+			synchronized (recentLines) {
+				for (String line : recentLines) {
+					sb.append("\n\t");
+					sb.append(line);
+				}
+			}
+
+			IOException ioe = new IOException(sb.toString());
+
+			if (exception != null) {
+				ioe.addSuppressed(exception);
+			}
+
+			throw ioe;
+		}
+
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	public interface LineListener {
+
+		public void onLine(String line);
+
+	}
+
+	private static Thread _pump(
+		final InputStream inputStream, final boolean displayProcessOutput,
+		final LineListener lineListener, final Deque<String> recentLines,
+		final AtomicReference<Exception> exceptionReference) {
+
+		Thread thread = new Thread() {
+
+			@Override
+			public void run() {
+				try (BufferedReader br = new BufferedReader(
+						new InputStreamReader(inputStream))) {
+
+					String line = null;
+
+					while ((line = br.readLine()) != null) {
+						if (displayProcessOutput) {
+							System.out.println(line);
+						}
+
+						synchronized (recentLines) {
+							if (recentLines.size() == _RECENT_LINES_SIZE) {
+								recentLines.removeFirst();
+							}
+
+							recentLines.addLast(line);
+						}
+
+						if (lineListener == null) {
+							continue;
+						}
+
+						try {
+							lineListener.onLine(line);
+						}
+						catch (RuntimeException re) {
+							exceptionReference.compareAndSet(null, re);
+						}
+					}
+				}
+				catch (IOException ioe) {
+					exceptionReference.compareAndSet(null, ioe);
+				}
+			}
+
+		};
+
+		thread.setDaemon(true);
+
+		thread.start();
+
+		return thread;
+	}
+
+	private static final int _RECENT_LINES_SIZE = 50;
+
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject;
+
+import com.liferay.netbeansproject.util.FileUtil;
+
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Tom Wang
+ */
+public class PortalScannerTest {
+
+	@Before
+	public void setup() throws IOException {
+		_portalPath = Files.createTempDirectory("portal-scanner-test");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtil.delete(_portalPath);
+	}
+
+	@Test
+	public void testFilesNextToModules() throws IOException {
+		Path modulesPath = _portalPath.resolve("modules");
+
+		Files.createDirectories(modulesPath.resolve("a/src"));
+		Files.createDirectories(modulesPath.resolve("b/src"));
+		Files.createDirectories(modulesPath.resolve("build"));
+
+		_write(modulesPath.resolve("build.gradle"));
+		_write(modulesPath.resolve("settings.gradle"));
+		_write(_portalPath.resolve("README.markdown"));
+
+		ScanIndex scanIndex = new ScanIndex(_IGNORED_DIRS);
+
+		Assert.assertEquals(
+			Arrays.asList(
+				modulesPath.resolve("a"), modulesPath.resolve("b")),
+			_scan(new ScanIndex(_IGNORED_DIRS), scanIndex));
+
+		ScanIndex.DirectoryEntry directoryEntry = scanIndex.get(modulesPath);
+
+		List<String> childDirNames = new ArrayList<>(
+			directoryEntry.getChildDirNames());
+
+		Collections.sort(childDirNames);
+
+		Assert.assertEquals(Arrays.asList("a", "b"), childDirNames);
+		Assert.assertEquals(
+			Collections.singletonList("modules"),
+			scanIndex.get(_portalPath).getChildDirNames());
+
+		Assert.assertEquals(
+			Arrays.asList(
+				modulesPath.resolve("a"), modulesPath.resolve("b")),
+			_scan(scanIndex, new ScanIndex(_IGNORED_DIRS)));
+	}
+
+	private List<Path> _scan(ScanIndex previousScanIndex, ScanIndex scanIndex)
+		throws IOException {
+
+		PortalScanner portalScanner = new PortalScanner(
+			ForkJoinPool.commonPool(),
+			new HashSet<>(Arrays.asList(_IGNORED_DIRS.split(","))));
+
+		final List<Path> modulePaths = Collections.synchronizedList(
+			new ArrayList<Path>());
+
+		portalScanner.scan(
+			_portalPath, previousScanIndex, scanIndex,
+			new PortalScanner.ModuleVisitor() {
+
+				@Override
+				public void visitModule(Path modulePath, String symbolicName) {
+					modulePaths.add(modulePath);
+				}
+
+			});
+
+		Collections.sort(modulePaths);
+
+		return modulePaths;
+	}
+
+	private void _write(Path path) throws IOException {
+		Files.write(path, "test".getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static final String _IGNORED_DIRS = ".git,build";
+
+	private Path _portalPath;
+
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject;
+
+import com.liferay.netbeansproject.template.FreeMarkerUtil;
+import com.liferay.netbeansproject.util.FileUtil;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Builds projects for a {@link SyntheticPortal} and checks the rebuild and
+ * the no-op incremental run against time and heap budgets. The size and the
+ * budgets come from the scale.module.count, scale.rebuild.millis,
+ * scale.incremental.millis and scale.heap.mb system properties, so the same
+ * test runs quickly by default and at 10k modules on demand. Setting
+ * scale.offline.resolution resolves the modules from the Gradle cache.
+ *
+ * @author Tom Wang
+ */
+public class ProjectBuilderScaleTest {
+
+	@Before
+	public void setup() throws IOException {
+		_rootPath = Files.createTempDirectory("project-builder-scale-test");
+
+		_portalPath = _rootPath.resolve("portal");
+
+		SyntheticPortal.create(_portalPath, _MODULE_COUNT);
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		FileUtil.delete(_rootPath);
+	}
+
+	@Test
+	public void testScale() throws Exception {
+		Path projectPath = _rootPath.resolve("project");
+
+		ProjectBuilder projectBuilder = new ProjectBuilder(
+			Runtime.getRuntime().availableProcessors(),
+			_rootPath.resolve("dependency-cache"), true,
+			_rootPath.resolve(".trash"), false, _OFFLINE_RESOLUTION);
+
+		long startTime = System.currentTimeMillis();
+
+		Set<Path> modulePaths = _scanPortal(projectBuilder, true, projectPath);
+
+		long rebuildTime = System.currentTimeMillis() - startTime;
+
+		Assert.assertEquals(_MODULE_COUNT + 2, modulePaths.size());
+		Assert.assertTrue(
+			"Rebuild took " + rebuildTime + " ms",
+			rebuildTime <= _REBUILD_MILLIS);
+
+		int writtenCount = FreeMarkerUtil.getWrittenCount();
+
+		startTime = System.currentTimeMillis();
+
+		_scanPortal(projectBuilder, false, projectPath);
+
+		long incrementalTime = System.currentTimeMillis() - startTime;
+
+		Assert.assertTrue(
+			"Incremental run took " + incrementalTime + " ms",
+			incrementalTime <= _INCREMENTAL_MILLIS);
+		Assert.assertEquals(
+			writtenCount, FreeMarkerUtil.getWrittenCount());
+
+		System.gc();
+
+		Runtime runtime = Runtime.getRuntime();
+
+		long usedHeap =
+			(runtime.totalMemory() - runtime.freeMemory()) / 1024 / 1024;
+
+		Assert.assertTrue(
+			"Used " + usedHeap + " MB of heap", usedHeap <= _HEAP_MB);
+	}
+
+	private Set<Path> _scanPortal(
+			ProjectBuilder projectBuilder, boolean rebuild, Path projectPath)
+		throws Exception {
+
+		Set<Path> modulePaths = projectBuilder.scanPortal(
+			rebuild, projectPath, _portalPath, false,
+			".git,.gradle,.synthetic,build,tools", 2,
+			Arrays.asList("modules"));
+
+		projectBuilder.awaitDeletions();
+
+		return modulePaths;
+	}
+
+	private static final long _HEAP_MB = Long.getLong("scale.heap.mb", 512);
+
+	private static final long _INCREMENTAL_MILLIS = Long.getLong(
+		"scale.incremental.millis", 30000);
+
+	private static final int _MODULE_COUNT = Integer.getInteger(
+		"scale.module.count", 200);
+
+	private static final boolean _OFFLINE_RESOLUTION = Boolean.getBoolean(
+		"scale.offline.resolution");
+
+	private static final long _REBUILD_MILLIS = Long.getLong(
+		"scale.rebuild.millis", 120000);
+
+	private Path _portalPath;
+	private Path _rootPath;
+
+}
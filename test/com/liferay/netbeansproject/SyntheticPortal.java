@@ -0,0 +1,368 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates a portal tree with the given number of modules, cycling through
+ * Maven layout modules, Maven layout modules with lib jars and resources,
+ * WAR modules and classic modules, together with a Gradle cache with POMs,
+ * portal lib jars and a stub gradlew. The stub answers printDependencies
+ * tasks with the same dependency records and progress lines as
+ * dependency.gradle, reading them from a .synthetic directory written by the
+ * generator, so projects can be built without a real checkout or network
+ * access.
+ *
+ * @author Tom Wang
+ */
+public class SyntheticPortal {
+
+	public static void create(Path portalPath, int moduleCount)
+		throws IOException {
+
+		Path gradleCachePath = portalPath.resolve(
+			Paths.get(".gradle", "caches", "modules-2", "files-2.1"));
+
+		List<Path> artifactJarPaths = new ArrayList<>();
+
+		for (int i = 0; i < _ARTIFACT_COUNT; i++) {
+			artifactJarPaths.add(
+				_createArtifact(
+					gradleCachePath, "com.example", "artifact" + i, "1.0.0",
+					"", true));
+		}
+
+		_createArtifact(
+			gradleCachePath, "junit", "junit", "4.12",
+			"<properties><hamcrest.version>1.3</hamcrest.version>" +
+				"</properties><dependencies><dependency>" +
+				"<groupId>org.hamcrest</groupId>" +
+				"<artifactId>hamcrest-core</artifactId>" +
+				"<version>${hamcrest.version}</version></dependency>" +
+				"<dependency><groupId>org.example</groupId>" +
+				"<artifactId>test-only</artifactId><version>1.0</version>" +
+				"<scope>test</scope></dependency></dependencies>",
+			true);
+		_createArtifact(
+			gradleCachePath, "org.hamcrest", "hamcrest-parent", "1.3", "",
+			false);
+		_createArtifact(
+			gradleCachePath, "org.hamcrest", "hamcrest-core", "1.3",
+			"<parent><groupId>org.hamcrest</groupId>" +
+				"<artifactId>hamcrest-parent</artifactId>" +
+				"<version>1.3</version></parent>",
+			true);
+
+		Path developmentLibPath = portalPath.resolve(
+			Paths.get("lib", "development"));
+
+		Files.createDirectories(developmentLibPath);
+
+		for (int i = 0; i < 20; i++) {
+			Files.write(
+				developmentLibPath.resolve("development" + i + ".jar"),
+				new byte[0]);
+		}
+
+		for (String portalModuleName : new String[] {
+				"portal-impl", "portal-kernel"}) {
+
+			Files.createDirectories(
+				portalPath.resolve(Paths.get(portalModuleName, "src")));
+		}
+
+		Path syntheticPath = portalPath.resolve(".synthetic");
+
+		Path syntheticDependenciesPath = syntheticPath.resolve("dependencies");
+
+		Files.createDirectories(syntheticDependenciesPath);
+
+		List<String> gradleProjectPaths = new ArrayList<>(moduleCount);
+
+		try (Writer writer = Files.newBufferedWriter(
+				syntheticPath.resolve("projects"))) {
+
+			for (int i = 0; i < moduleCount; i++) {
+				String moduleName = _getModuleName(i);
+
+				String gradleProjectPath =
+					":apps:app" + (i / _APP_SIZE) + ":" + moduleName;
+
+				gradleProjectPaths.add(gradleProjectPath);
+
+				_createModule(
+					portalPath, i, moduleName, gradleProjectPaths,
+					artifactJarPaths);
+
+				writer.write(gradleProjectPath);
+				writer.write(' ');
+				writer.write(moduleName);
+				writer.write('\n');
+
+				_writeDependencies(
+					syntheticDependenciesPath, moduleName, i,
+					artifactJarPaths);
+			}
+		}
+
+		Path gradlewPath = portalPath.resolve("gradlew");
+
+		Files.write(gradlewPath, _GRADLEW.getBytes(StandardCharsets.UTF_8));
+
+		Files.setPosixFilePermissions(
+			gradlewPath, PosixFilePermissions.fromString("rwxr-xr-x"));
+	}
+
+	private static Path _createArtifact(
+			Path gradleCachePath, String group, String name, String version,
+			String pom, boolean jar)
+		throws IOException {
+
+		Path artifactPath = gradleCachePath.resolve(
+			Paths.get(group, name, version, "0123456789abcdef"));
+
+		Files.createDirectories(artifactPath);
+
+		String prefix = name + "-" + version;
+
+		String pomXML =
+			"<project><modelVersion>4.0.0</modelVersion><groupId>" + group +
+				"</groupId><artifactId>" + name + "</artifactId><version>" +
+					version + "</version>" + pom + "</project>";
+
+		Files.write(
+			artifactPath.resolve(prefix + ".pom"),
+			pomXML.getBytes(StandardCharsets.UTF_8));
+
+		Path artifactJarPath = artifactPath.resolve(prefix + ".jar");
+
+		if (jar) {
+			Files.write(artifactJarPath, new byte[0]);
+			Files.write(
+				artifactPath.resolve(prefix + "-sources.jar"), new byte[0]);
+		}
+
+		return artifactJarPath;
+	}
+
+	private static void _createModule(
+			Path portalPath, int index, String moduleName,
+			List<String> gradleProjectPaths, List<Path> artifactJarPaths)
+		throws IOException {
+
+		Path modulePath = portalPath.resolve(
+			Paths.get(
+				"modules", "apps", "app" + (index / _APP_SIZE), moduleName));
+
+		int layout = index % 4;
+
+		if (layout == 0) {
+			Files.createDirectories(
+				modulePath.resolve(Paths.get("src", "main", "java")));
+			Files.createDirectories(
+				modulePath.resolve(Paths.get("src", "test", "java")));
+		}
+		else if (layout == 1) {
+			Files.createDirectories(
+				modulePath.resolve(Paths.get("src", "main", "java")));
+			Files.createDirectories(
+				modulePath.resolve(Paths.get("src", "main", "resources")));
+			Files.createDirectories(
+				modulePath.resolve(
+					Paths.get("src", "testIntegration", "java")));
+
+			Path libPath = modulePath.resolve("lib");
+
+			Files.createDirectories(libPath);
+
+			for (int i = 0; i < 3; i++) {
+				Files.write(
+					libPath.resolve(moduleName + "-lib" + i + ".jar"),
+					new byte[0]);
+			}
+		}
+		else if (layout == 2) {
+			Files.createDirectories(
+				modulePath.resolve(Paths.get("docroot", "WEB-INF", "src")));
+		}
+		else {
+			Files.createDirectories(modulePath.resolve("src"));
+			Files.createDirectories(
+				modulePath.resolve(Paths.get("test", "unit")));
+			Files.createDirectories(
+				modulePath.resolve(Paths.get("test", "integration")));
+		}
+
+		if (layout != 2) {
+			Files.write(
+				modulePath.resolve("bnd.bnd"),
+				_getBnd(moduleName).getBytes(StandardCharsets.UTF_8));
+		}
+
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("dependencies {\n");
+
+		for (int i = 1; i <= 3; i++) {
+			int dependencyIndex = index - (i * 7);
+
+			if (dependencyIndex < 0) {
+				break;
+			}
+
+			if (((dependencyIndex % 4) == 2) || ((i % 2) == 0)) {
+				sb.append("\tprovided project(\"");
+				sb.append(gradleProjectPaths.get(dependencyIndex));
+				sb.append("\")\n");
+			}
+			else {
+				sb.append("\tprovided group: \"com.liferay\", name: \"");
+				sb.append(_getSymbolicName(_getModuleName(dependencyIndex)));
+				sb.append("\", version: \"default\"\n");
+			}
+		}
+
+		for (int i = 0; i < 5; i++) {
+			Path artifactJarPath = artifactJarPaths.get(
+				(index * 5 + i) % artifactJarPaths.size());
+
+			sb.append("\tcompile group: \"com.example\", name: \"");
+			sb.append(artifactJarPath.getParent().getParent().getParent().
+				getFileName());
+			sb.append("\", version: \"1.0.0\"\n");
+		}
+
+		sb.append("\ttestCompile group: \"junit\", name: \"junit\", ");
+		sb.append("version: \"4.12\"\n");
+		sb.append("}");
+
+		Files.write(
+			modulePath.resolve("build.gradle"),
+			sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String _getBnd(String moduleName) {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("Bundle-Name: ");
+		sb.append(moduleName);
+		sb.append("\nBundle-SymbolicName: ");
+		sb.append(_getSymbolicName(moduleName));
+		sb.append("\nBundle-Version: 1.0.0\n");
+
+		return sb.toString();
+	}
+
+	private static String _getModuleName(int index) {
+		if ((index % 4) == 2) {
+			return "module" + index + "-web";
+		}
+
+		return "module" + index;
+	}
+
+	private static String _getSymbolicName(String moduleName) {
+		return "com.liferay.".concat(moduleName.replace('-', '.'));
+	}
+
+	private static void _writeDependencies(
+			Path dependenciesPath, String moduleName, int index,
+			List<Path> artifactJarPaths)
+		throws IOException {
+
+		StringBuilder compileSB = new StringBuilder();
+		StringBuilder compileSourcesSB = new StringBuilder();
+
+		for (int i = 0; i < _COMPILE_JAR_COUNT; i++) {
+			Path artifactJarPath = artifactJarPaths.get(
+				(index * 5 + i) % artifactJarPaths.size());
+
+			compileSB.append(artifactJarPath);
+			compileSB.append(':');
+
+			if ((i % 2) == 0) {
+				String fileName = String.valueOf(artifactJarPath.getFileName());
+
+				compileSourcesSB.append(
+					artifactJarPath.resolveSibling(
+						fileName.replace(".jar", "-sources.jar")));
+				compileSourcesSB.append(':');
+			}
+		}
+
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("[dependencies]\t");
+		sb.append(moduleName);
+		sb.append("\tcompile=");
+		sb.append(compileSB);
+		sb.append("\tcompileSources=");
+		sb.append(compileSourcesSB);
+		sb.append("\tcompileTest=");
+		sb.append(compileSB);
+		sb.append(artifactJarPaths.get(index % artifactJarPaths.size()));
+		sb.append(":\ttestIntegrationRuntimeSources=");
+		sb.append(compileSourcesSB);
+		sb.append('\n');
+
+		Files.write(
+			dependenciesPath.resolve(moduleName),
+			sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static final int _APP_SIZE = 10;
+
+	private static final int _ARTIFACT_COUNT = 500;
+
+	private static final int _COMPILE_JAR_COUNT = 20;
+
+	private static final String _GRADLEW =
+		"#!/bin/sh\n" +
+		"\n" +
+		"synthetic_dir=\"$(cd \"$(dirname \"$0\")\" && pwd)/.synthetic\"\n" +
+		"\n" +
+		"tasks=\n" +
+		"\n" +
+		"for arg in \"$@\"\n" +
+		"do\n" +
+		"\tcase \"$arg\" in\n" +
+		"\t\t--stop) exit 0 ;;\n" +
+		"\t\t*printDependencies) tasks=\"$tasks :$arg \" ;;\n" +
+		"\tesac\n" +
+		"done\n" +
+		"\n" +
+		"while read -r project_path project_name\n" +
+		"do\n" +
+		"\tcase \"$tasks\" in\n" +
+		"\t\t*\" :printDependencies \"*|" +
+			"*\" $project_path:printDependencies \"*)\n" +
+		"\t\t\tcat \"$synthetic_dir/dependencies/$project_name\"\n" +
+		"\t\t\techo \"[printDependencies] $project_path 0\"\n" +
+		"\t\t\t;;\n" +
+		"\tesac\n" +
+		"done < \"$synthetic_dir/projects\"\n";
+
+}
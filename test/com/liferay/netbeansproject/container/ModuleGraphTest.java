@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.container;
+
+import java.io.IOException;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Tom Wang
+ */
+public class ModuleGraphTest {
+
+	@Before
+	public void setup() throws IOException {
+		_modules = new ArrayList<>();
+
+		_addModule("a", "b");
+		_addModule("b", "c");
+		_addModule("c", "a");
+		_addModule("d", "a", "excluded");
+		_addModule("e", "test:b", "d");
+		_addModule("portal-kernel");
+
+		_moduleGraph = new ModuleGraph(_modules);
+	}
+
+	@Test
+	public void testCycles() {
+		Assert.assertEquals(
+			Collections.singletonList(_set("a", "b", "c")),
+			_moduleGraph.getCycles());
+	}
+
+	@Test
+	public void testDependents() {
+		Assert.assertEquals(_set("c", "d"), _moduleGraph.getDependents("a"));
+		Assert.assertEquals(
+			_set("a", "b", "c", "d", "e"),
+			_moduleGraph.getDependents("portal-kernel"));
+		Assert.assertEquals(
+			_set("a", "b", "c", "d", "e"),
+			_moduleGraph.getTransitiveDependents("a"));
+		Assert.assertEquals(
+			_set("d", "e"), _moduleGraph.getTransitiveDependents("excluded"));
+		Assert.assertEquals(
+			_set(), _moduleGraph.getTransitiveDependents("e"));
+	}
+
+	@Test
+	public void testModuleDependencies() {
+		Set<Dependency> moduleDependencies =
+			_moduleGraph.getModuleDependencies(
+				Arrays.asList(
+					_moduleGraph.getModule("a"), _moduleGraph.getModule("e")));
+
+		Iterator<Dependency> iterator = moduleDependencies.iterator();
+
+		_assertDependency(iterator.next(), "b", false);
+		_assertDependency(iterator.next(), "d", false);
+
+		Assert.assertFalse(iterator.hasNext());
+
+		moduleDependencies = _moduleGraph.getModuleDependencies(
+			Collections.singletonList(_moduleGraph.getModule("e")));
+
+		iterator = moduleDependencies.iterator();
+
+		_assertDependency(iterator.next(), "b", true);
+		_assertDependency(iterator.next(), "d", false);
+
+		Assert.assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testTransitiveDependencies() {
+		Assert.assertEquals(
+			_set("a", "b", "c", "portal-kernel"),
+			_moduleGraph.getTransitiveDependencies("b"));
+		Assert.assertEquals(
+			_set("a", "b", "c", "d", "excluded", "portal-kernel"),
+			_moduleGraph.getTransitiveDependencies("e"));
+		Assert.assertEquals(
+			_set(), _moduleGraph.getTransitiveDependencies("portal-kernel"));
+	}
+
+	private void _addModule(String name, String... dependencyNames)
+		throws IOException {
+
+		Set<Dependency> moduleDependencies = new HashSet<>();
+
+		for (String dependencyName : dependencyNames) {
+			boolean test = dependencyName.startsWith("test:");
+
+			if (test) {
+				dependencyName = dependencyName.substring(5);
+			}
+
+			moduleDependencies.add(
+				new Dependency(
+					Paths.get("modules", dependencyName), null, test));
+		}
+
+		Properties portalModuleDependencyProperties = new Properties();
+
+		portalModuleDependencyProperties.setProperty(
+			"portal.module.dependencies", "portal-kernel");
+		portalModuleDependencyProperties.setProperty("portal-kernel", "");
+
+		_modules.add(
+			Module.createModule(
+				null, _rootPath.resolve(name), moduleDependencies, null,
+				portalModuleDependencyProperties));
+	}
+
+	private void _assertDependency(
+		Dependency dependency, String name, boolean test) {
+
+		Assert.assertEquals(Paths.get(name), dependency.getName());
+		Assert.assertEquals(test, dependency.isTest());
+	}
+
+	private Set<String> _set(String... names) {
+		return new TreeSet<>(Arrays.asList(names));
+	}
+
+	private ModuleGraph _moduleGraph;
+	private List<Module> _modules;
+	private final Path _rootPath = Paths.get("/nonexistent", "portal");
+
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.container;
+
+import com.liferay.netbeansproject.util.FileUtil;
+
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Tom Wang
+ */
+public class ModuleProbeTest {
+
+	@Before
+	public void setup() throws IOException {
+		_rootPath = Files.createTempDirectory("module-probe-test");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtil.delete(_rootPath);
+	}
+
+	@Test
+	public void testClassicModule() throws IOException {
+		Path srcPath = _createDirectory("src");
+		Path unitPath = _createDirectory("test", "unit");
+		Path integrationPath = _createDirectory("test", "integration");
+
+		ModuleProbe moduleProbe = ModuleProbe.probe(_rootPath);
+
+		Assert.assertEquals(srcPath, moduleProbe.getSourcePath());
+		Assert.assertNull(moduleProbe.getSourceResourcePath());
+		Assert.assertEquals(unitPath, moduleProbe.getTestUnitPath());
+		Assert.assertEquals(
+			integrationPath, moduleProbe.getTestIntegrationPath());
+	}
+
+	@Test
+	public void testFingerprint() throws IOException {
+		Path libPath = _createDirectory("lib");
+
+		Path aJarPath = libPath.resolve("a.jar");
+		Path bJarPath = libPath.resolve("b.jar");
+
+		_write(bJarPath, "b");
+		_write(aJarPath, "a");
+		_write(libPath.resolve("readme.txt"), "readme");
+		_write(_rootPath.resolve("build.gradle"), "dependencies {}");
+
+		ModuleProbe moduleProbe = ModuleProbe.probe(_rootPath);
+
+		Assert.assertEquals(
+			Arrays.asList(aJarPath, bJarPath), moduleProbe.getLibJarPaths());
+
+		String checksum = moduleProbe.getChecksum();
+
+		Assert.assertTrue(checksum.startsWith("build.gradle="));
+		Assert.assertTrue(checksum.contains(",lib/a.jar="));
+		Assert.assertFalse(checksum.contains("bnd.bnd"));
+
+		_write(aJarPath, "changed");
+
+		Assert.assertSame(checksum, moduleProbe.getChecksum());
+		Assert.assertNotEquals(
+			checksum, ModuleProbe.probe(_rootPath).getChecksum());
+	}
+
+	@Test
+	public void testMavenModule() throws IOException {
+		Path srcPath = _createDirectory("src", "main", "java");
+		Path resourcePath = _createDirectory("src", "main", "resources");
+		Path unitPath = _createDirectory("src", "test", "java");
+		Path unitResourcePath = _createDirectory("src", "test", "resources");
+		Path integrationPath = _createDirectory(
+			"src", "testIntegration", "java");
+
+		ModuleProbe moduleProbe = ModuleProbe.probe(_rootPath);
+
+		Assert.assertEquals(srcPath, moduleProbe.getSourcePath());
+		Assert.assertEquals(resourcePath, moduleProbe.getSourceResourcePath());
+		Assert.assertEquals(unitPath, moduleProbe.getTestUnitPath());
+		Assert.assertEquals(
+			unitResourcePath, moduleProbe.getTestUnitResourcePath());
+		Assert.assertEquals(
+			integrationPath, moduleProbe.getTestIntegrationPath());
+		Assert.assertNull(moduleProbe.getTestIntegrationResourcePath());
+		Assert.assertTrue(moduleProbe.getLibJarPaths().isEmpty());
+		Assert.assertEquals("", moduleProbe.getStatSignature());
+	}
+
+	@Test
+	public void testMavenTestModule() throws IOException {
+		Path unitPath = _createDirectory("src", "test", "java");
+
+		ModuleProbe moduleProbe = ModuleProbe.probe(_rootPath);
+
+		Assert.assertNull(moduleProbe.getSourcePath());
+		Assert.assertEquals(unitPath, moduleProbe.getTestUnitPath());
+		Assert.assertNull(moduleProbe.getTestIntegrationPath());
+	}
+
+	@Test
+	public void testWarModule() throws IOException {
+		Path srcPath = _createDirectory("docroot", "WEB-INF", "src");
+
+		_createDirectory("src", "main", "java");
+
+		ModuleProbe moduleProbe = ModuleProbe.probe(_rootPath);
+
+		Assert.assertEquals(srcPath, moduleProbe.getSourcePath());
+	}
+
+	private Path _createDirectory(String first, String... more)
+		throws IOException {
+
+		return Files.createDirectories(
+			_rootPath.resolve(Paths.get(first, more)));
+	}
+
+	private void _write(Path path, String content) throws IOException {
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Path _rootPath;
+
+}
@@ -0,0 +1,283 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Tom Wang
+ */
+public class BuildGradleParserTest {
+
+	@Test
+	public void testCache() throws IOException {
+		Path buildGradlePath = Files.createTempFile("build", ".gradle");
+
+		try {
+			_write(buildGradlePath, "dependencies {\n\tcompile \"a:b:1\"\n}");
+
+			List<BuildGradleParser.Declaration> declarations =
+				BuildGradleParser.parse(buildGradlePath);
+
+			Assert.assertSame(
+				declarations, BuildGradleParser.parse(buildGradlePath));
+
+			_write(
+				buildGradlePath,
+				"dependencies {\n\tcompile \"a:c:1\"\n\tcompile \"a:d:1\"\n}");
+
+			Assert.assertEquals(
+				Arrays.asList("compile a:c:1", "compile a:d:1"),
+				_toStrings(BuildGradleParser.parse(buildGradlePath)));
+
+			FileTime fileTime = Files.getLastModifiedTime(buildGradlePath);
+
+			_write(
+				buildGradlePath,
+				"dependencies {\n\tcompile \"a:c:2\"\n\tcompile \"a:d:1\"\n}");
+
+			Files.setLastModifiedTime(buildGradlePath, fileTime);
+
+			Assert.assertEquals(
+				Arrays.asList("compile a:c:2", "compile a:d:1"),
+				_toStrings(BuildGradleParser.parse(buildGradlePath)));
+		}
+		finally {
+			Files.delete(buildGradlePath);
+		}
+	}
+
+	@Test
+	public void testClassifiers() {
+		List<BuildGradleParser.Declaration> declarations =
+			BuildGradleParser.parse(
+				_toString(
+					"dependencies {",
+					"\ttestCompile 'i:j:5:tests'",
+					"\tcompile group: 'a', name: 'b', version: '1', " +
+						"classifier: 'x'",
+					"\tcompile 'c:d:2@zip'",
+					"\tcompile 'e:f:3:sources@jar'",
+					"\tcompile group: 'g', name: 'h', version: '4', ext: 'war'",
+					"\tcompile 'k:l:6'",
+					"}"));
+
+		Assert.assertEquals(
+			Arrays.asList(
+				"testCompile i:j:5:tests", "compile a:b:1:x",
+				"compile c:d:2@zip", "compile e:f:3:sources@jar",
+				"compile g:h:4@war", "compile k:l:6"),
+			_toStrings(declarations));
+
+		Assert.assertEquals("tests", declarations.get(0).getClassifier());
+		Assert.assertNull(declarations.get(0).getExtension());
+		Assert.assertEquals("x", declarations.get(1).getClassifier());
+		Assert.assertNull(declarations.get(2).getClassifier());
+		Assert.assertEquals("zip", declarations.get(2).getExtension());
+		Assert.assertEquals("sources", declarations.get(3).getClassifier());
+		Assert.assertEquals("jar", declarations.get(3).getExtension());
+		Assert.assertEquals("war", declarations.get(4).getExtension());
+		Assert.assertNull(declarations.get(5).getClassifier());
+		Assert.assertNull(declarations.get(5).getExtension());
+	}
+
+	@Test
+	public void testClosures() {
+		Assert.assertEquals(
+			Arrays.asList(
+				"compile project(:apps:foo:foo-api)",
+				"testCompile com.liferay:com.liferay.bar:2.0.0",
+				"compile com.liferay:com.liferay.baz:null"),
+			_parse(
+				"dependencies {",
+				"\tcompile(project(\":apps:foo:foo-api\")) {",
+				"\t\texclude group: \"com.liferay\", name: \"excluded\"",
+				"\t}",
+				"",
+				"\tif (System.getProperty(\"test\") != null) {",
+				"\t\ttestCompile \"com.liferay:com.liferay.bar:2.0.0\"",
+				"\t}",
+				"\telse {",
+				"\t\tcompile group: \"com.liferay\", name: " +
+					"\"com.liferay.baz\"",
+				"\t}",
+				"}"));
+	}
+
+	@Test
+	public void testMaps() {
+		Assert.assertEquals(
+			Arrays.asList(
+				"compileOnly com.liferay:com.liferay.foo:1.0.0",
+				"provided com.liferay.portal:com.liferay.portal.kernel:2.0.0",
+				"testIntegrationCompile com.liferay:com.liferay.a:1",
+				"testIntegrationCompile com.liferay:com.liferay.b:2"),
+			_parse(
+				"dependencies {",
+				"\tcompileOnly group: \"com.liferay\", name: " +
+					"\"com.liferay.foo\", version: \"1.0.0\"",
+				"\tprovided(",
+				"\t\tgroup: 'com.liferay.portal',",
+				"\t\tname: 'com.liferay.portal.kernel',",
+				"\t\tversion: '2.0.0'",
+				"\t)",
+				"\ttestIntegrationCompile(",
+				"\t\t[group: \"com.liferay\", name: \"com.liferay.a\", " +
+					"version: \"1\"],",
+				"\t\t[group: \"com.liferay\", name: \"com.liferay.b\", " +
+					"version: \"2\"])",
+				"}"));
+	}
+
+	@Test
+	public void testProjects() {
+		Assert.assertEquals(
+			Arrays.asList(
+				"classpath com.liferay:com.liferay.gradle.plugins:latest",
+				"compile project(:apps:foo:foo-api)",
+				"testCompile project(:apps:foo:foo-test-util)",
+				"compileInclude project(:core:petra:petra-string)",
+				"compile files(...)"),
+			_parse(
+				"buildscript {",
+				"\tdependencies {",
+				"\t\tclasspath group: \"com.liferay\", name: " +
+					"\"com.liferay.gradle.plugins\", version: \"latest\"",
+				"\t}",
+				"}",
+				"",
+				"apply plugin: \"com.liferay.gradle.plugins\"",
+				"",
+				"dependencies {",
+				"\tcompile project(\":apps:foo:foo-api\") // \"x:y:z\"",
+				"\ttestCompile project(",
+				"\t\t\":apps:foo:foo-test-util\"",
+				"\t)",
+				"",
+				"\t/*",
+				"\tcompile project(\":apps:foo:commented\")",
+				"\t*/",
+				"",
+				"\tcompileInclude project(",
+				"\t\tpath: \":core:petra:petra-string\", " +
+					"configuration: \"default\")",
+				"\tcompile files(\"lib/a:b.jar\")",
+				"}",
+				"",
+				"jar {",
+				"\tcompile \"not:a:dependency\"",
+				"}"));
+	}
+
+	@Test
+	public void testTransitive() {
+		List<BuildGradleParser.Declaration> declarations =
+			BuildGradleParser.parse(
+				_toString(
+					"dependencies {",
+					"\tcompile group: 'a', name: 'b', version: '1', " +
+						"transitive: false",
+					"\tcompile group: 'a', name: 'c', version: '1', " +
+						"transitive: true",
+					"\tcompile('a:d:1') {",
+					"\t\texclude group: 'x'",
+					"\t}",
+					"\tcompile('a:e:1') {",
+					"\t\ttransitive = false",
+					"\t}",
+					"\tcompile(group: 'a', name: 'f', version: '1') {",
+					"\t\texclude module: 'y'",
+					"\t}",
+					"\tcompile(project(':apps:foo:foo-api')) {",
+					"\t\ttransitive = false",
+					"\t}",
+					"\tcompile 'a:g:1'",
+					"}"));
+
+		Assert.assertEquals(
+			Arrays.asList(
+				"compile a:b:1", "compile a:c:1", "compile a:d:1",
+				"compile a:e:1", "compile a:f:1",
+				"compile project(:apps:foo:foo-api)", "compile a:g:1"),
+			_toStrings(declarations));
+
+		Assert.assertFalse(declarations.get(0).isTransitive());
+		Assert.assertFalse(declarations.get(0).hasClosure());
+		Assert.assertTrue(declarations.get(1).isTransitive());
+		Assert.assertFalse(declarations.get(1).hasClosure());
+
+		for (int i = 2; i < 6; i++) {
+			BuildGradleParser.Declaration declaration = declarations.get(i);
+
+			Assert.assertTrue(declaration.isTransitive());
+			Assert.assertTrue(declaration.hasClosure());
+		}
+
+		Assert.assertTrue(declarations.get(6).isTransitive());
+		Assert.assertFalse(declarations.get(6).hasClosure());
+	}
+
+	private List<String> _parse(String... lines) {
+		return _toStrings(BuildGradleParser.parse(_toString(lines)));
+	}
+
+	private String _toString(String... lines) {
+		StringBuilder sb = new StringBuilder();
+
+		for (String line : lines) {
+			sb.append(line);
+			sb.append('\n');
+		}
+
+		return sb.toString();
+	}
+
+	private List<String> _toStrings(
+		List<BuildGradleParser.Declaration> declarations) {
+
+		List<String> strings = new ArrayList<>();
+
+		for (BuildGradleParser.Declaration declaration : declarations) {
+			strings.add(declaration.toString());
+		}
+
+		return strings;
+	}
+
+	private void _write(Path path, String content) throws IOException {
+		FileTime fileTime = Files.exists(path) ?
+			Files.getLastModifiedTime(path) : null;
+
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+
+		if (fileTime != null) {
+			Files.setLastModifiedTime(
+				path, FileTime.fromMillis(fileTime.toMillis() + 1000));
+		}
+	}
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Tom Wang
+ */
+public class DependencyCacheTest {
+
+	@Before
+	public void setup() throws IOException {
+		_rootPath = Files.createTempDirectory("dependency-cache-test");
+
+		_portalPath = _rootPath.resolve("portal");
+
+		_appsPath = _portalPath.resolve("modules/apps");
+
+		_aModulePath = _appsPath.resolve("a");
+
+		_write(
+			_aModulePath.resolve("build.gradle"),
+			"dependencies {\n\tcompile project(\":apps:b\")\n}");
+
+		Path bModulePath = _appsPath.resolve("b");
+
+		_write(
+			bModulePath.resolve("build.gradle"),
+			"dependencies {\n\tcompile project(\":apps:c\")\n}");
+
+		_cModulePath = _appsPath.resolve("c");
+
+		_write(
+			_cModulePath.resolve("build.gradle"),
+			"dependencies {\n\tcompile \"g:n:1\"\n}");
+
+		_write(_appsPath.resolve("gradle.properties"), "a=1");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtil.delete(_rootPath);
+	}
+
+	@Test
+	public void testAncestorBuildScripts() throws IOException {
+		_store();
+
+		Assert.assertNotNull(_load());
+
+		_write(_appsPath.resolve("gradle.properties"), "a=2");
+
+		Assert.assertNull(_load());
+
+		_write(_appsPath.resolve("gradle.properties"), "a=1");
+
+		Assert.assertNotNull(_load());
+	}
+
+	@Test
+	public void testProjectDependencies() throws IOException {
+		_store();
+
+		Properties properties = _load();
+
+		Assert.assertEquals(
+			_portalPath.resolve("lib/a.jar") + ":",
+			properties.getProperty("compile"));
+
+		_write(
+			_cModulePath.resolve("build.gradle"),
+			"dependencies {\n\tcompile \"g:n:2\"\n}");
+
+		Assert.assertNull(_load());
+
+		_write(
+			_cModulePath.resolve("build.gradle"),
+			"dependencies {\n\tcompile \"g:n:1\"\n}");
+
+		Assert.assertNotNull(_load());
+	}
+
+	private Properties _load() throws IOException {
+		DependencyCache dependencyCache = new DependencyCache(
+			_rootPath.resolve("cache"), _portalPath);
+
+		return dependencyCache.load(_aModulePath);
+	}
+
+	private void _store() throws IOException {
+		DependencyCache dependencyCache = new DependencyCache(
+			_rootPath.resolve("cache"), _portalPath);
+
+		Properties properties = new Properties();
+
+		properties.setProperty(
+			"compile", _portalPath.resolve("lib/a.jar") + ":");
+
+		dependencyCache.store(_aModulePath, properties);
+	}
+
+	private void _write(Path path, String content) throws IOException {
+		Files.createDirectories(path.getParent());
+
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Path _aModulePath;
+	private Path _appsPath;
+	private Path _cModulePath;
+	private Path _portalPath;
+	private Path _rootPath;
+
+}
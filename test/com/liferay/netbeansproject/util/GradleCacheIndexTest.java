@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2000-present Liferay, Inc. All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package com.liferay.netbeansproject.util;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Tom Wang
+ */
+public class GradleCacheIndexTest {
+
+	@Before
+	public void setup() throws IOException {
+		_rootPath = Files.createTempDirectory("gradle-cache-index-test");
+
+		_gradleCachePath = _rootPath.resolve("files-2.1");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtil.delete(_rootPath);
+	}
+
+	@Test
+	public void testIndex() throws IOException {
+		Path jarPath = _addFile("com.example", "a", "1.0", "a-1.0.jar");
+		Path sourceJarPath = _addFile(
+			"com.example", "a", "1.0", "a-1.0-sources.jar");
+		Path pomPath = _addFile("com.example", "a", "1.0", "a-1.0.pom");
+
+		Path otherJarPath = _addFile("com.example", "b", "2.0", "b-2.0.jar");
+
+		GradleCacheIndex gradleCacheIndex = new GradleCacheIndex();
+
+		gradleCacheIndex.index(_gradleCachePath);
+
+		Assert.assertEquals(2, gradleCacheIndex.size());
+		Assert.assertEquals(
+			sourceJarPath, gradleCacheIndex.getSourceJarPath(jarPath));
+		Assert.assertNull(gradleCacheIndex.getSourceJarPath(otherJarPath));
+
+		GradleCacheIndex.Artifact artifact = gradleCacheIndex.getArtifact(
+			_gradleCachePath, "com.example", "a", "1.0");
+
+		Assert.assertEquals(jarPath, artifact.getJarPath());
+		Assert.assertEquals(pomPath, artifact.getPomPath());
+		Assert.assertEquals(sourceJarPath, artifact.getSourceJarPath());
+		Assert.assertEquals(3, artifact.getSize());
+
+		Assert.assertNull(
+			gradleCacheIndex.getArtifact(
+				_gradleCachePath, "com.example", "a", "2.0"));
+
+		Path otherSourceJarPath = _addFile(
+			"com.example", "b", "2.0", "b-2.0-sources.jar");
+
+		Files.setLastModifiedTime(
+			otherJarPath.getParent().getParent(),
+			FileTime.fromMillis(System.currentTimeMillis() + 60000));
+
+		gradleCacheIndex.index(_gradleCachePath);
+
+		Assert.assertEquals(
+			otherSourceJarPath,
+			gradleCacheIndex.getSourceJarPath(otherJarPath));
+
+		Path gradleCacheIndexPath = _rootPath.resolve("gradle-cache.index");
+
+		gradleCacheIndex.save(gradleCacheIndexPath);
+
+		gradleCacheIndex = GradleCacheIndex.load(gradleCacheIndexPath);
+
+		Assert.assertEquals(2, gradleCacheIndex.size());
+		Assert.assertEquals(
+			sourceJarPath, gradleCacheIndex.getSourceJarPath(jarPath));
+		Assert.assertEquals(
+			otherSourceJarPath,
+			gradleCacheIndex.getSourceJarPath(otherJarPath));
+
+		FileUtil.delete(jarPath.getParent().getParent().getParent());
+
+		gradleCacheIndex.index(_gradleCachePath);
+
+		Assert.assertEquals(1, gradleCacheIndex.size());
+		Assert.assertNull(gradleCacheIndex.getSourceJarPath(jarPath));
+	}
+
+	private Path _addFile(
+			String group, String name, String version, String fileName)
+		throws IOException {
+
+		Path path = _gradleCachePath.resolve(
+			Paths.get(
+				group, name, version, Integer.toHexString(fileName.hashCode()),
+				fileName));
+
+		Files.createDirectories(path.getParent());
+
+		Files.write(path, new byte[] {1, 2, 3});
+
+		return path.toAbsolutePath();
+	}
+
+	private Path _gradleCachePath;
+	private Path _rootPath;
+
+}